@@ -25,28 +25,138 @@ package com.github.lukaszkusek.xml.comparator;
 
 import javax.xml.transform.TransformerException;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.ObjIntConsumer;
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
 import com.github.lukaszkusek.xml.comparator.comparators.XMLComparatorStep;
+import com.github.lukaszkusek.xml.comparator.comparators.attributes.XMLAttributesComparator;
+import com.github.lukaszkusek.xml.comparator.comparators.children.IdentityKey;
+import com.github.lukaszkusek.xml.comparator.comparators.children.MatchingStatistics;
+import com.github.lukaszkusek.xml.comparator.comparators.children.MatchingStrategySelector;
+import com.github.lukaszkusek.xml.comparator.comparators.children.XMLChildrenIgnoringOrderComparator;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostCalculator;
+import com.github.lukaszkusek.xml.comparator.comparators.order.XMLCheckChildrenOrderComparator;
+import com.github.lukaszkusek.xml.comparator.comparators.values.XMLValuesComparator;
 import com.github.lukaszkusek.xml.comparator.diff.DifferenceCode;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceCounter;
 import com.github.lukaszkusek.xml.comparator.diff.DifferenceDetails;
 import com.github.lukaszkusek.xml.comparator.diff.DifferenceInformation;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceListener;
 import com.github.lukaszkusek.xml.comparator.diff.XMLDiff;
 import com.github.lukaszkusek.xml.comparator.document.XMLDocument;
 import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.apache.commons.lang.ObjectUtils;
 
-public class XMLComparator {
+/**
+ * Comparator created by {@link XMLComparatorBuilder#build()} keeps only compiled configuration
+ * and is immutable, so a single instance can be shared by many threads comparing different documents.
+ * A comparator built with parallelism owns a fork-join pool, which is shut down when the comparator is closed.
+ */
+public class XMLComparator implements AutoCloseable {
+
+    private final boolean ignoreNamespaces;
+
+    private final boolean columnarDocuments;
+
+    private final Map<String, Pattern> valueExtractors;
+
+    private final Set<String> xPathsToOmit;
+
+    private final Set<String> xPathsOfChildrenInOrder;
 
-    private XMLDocument xmlDocument1;
-    private XMLDocument xmlDocument2;
+    private final Predicate<DifferenceInformation> xPathsToOmitPredicate;
 
-    private Predicate<DifferenceInformation> xPathsToOmitPredicate;
+    private final List<XMLComparatorStep> xmlComparatorSteps;
 
-    private List<XMLComparatorStep> xmlComparatorSteps;
+    private final ForkJoinPool forkJoinPool;
 
-    XMLComparator() {
+    private final int maxDifferences;
+
+    private final MatchingStrategySelector matchingStrategySelector;
+
+    XMLComparator(
+            boolean ignoreNamespaces,
+            boolean columnarDocuments,
+            Map<String, Pattern> valueExtractors,
+            Set<String> xPathsToOmit,
+            Map<String, IdentityKey> identityKeys,
+            Map<String, IdentityKey> blockingKeys,
+            Set<String> orderedXPaths,
+            Set<String> positionalXPaths,
+            MatchingStrategySelector matchingStrategySelector,
+            ForkJoinPool forkJoinPool,
+            int minimumParallelGroupSize,
+            long outOfCoreCellsCount,
+            int maxDifferences) {
+
+        this.ignoreNamespaces = ignoreNamespaces;
+        this.columnarDocuments = columnarDocuments;
+        this.valueExtractors = valueExtractors;
+        this.xPathsToOmit = xPathsToOmit;
+        this.xPathsOfChildrenInOrder = ImmutableSet.copyOf(Sets.union(orderedXPaths, positionalXPaths));
+        this.xPathsToOmitPredicate = new XPathsToOmitPredicate(xPathsToOmit);
+        this.forkJoinPool = forkJoinPool;
+        this.maxDifferences = maxDifferences;
+        this.matchingStrategySelector = matchingStrategySelector;
+        this.xmlComparatorSteps = ImmutableList.of(
+                new XMLValuesComparator(valueExtractors),
+                new XMLAttributesComparator(valueExtractors),
+                new XMLCheckChildrenOrderComparator(),
+                new XMLChildrenIgnoringOrderComparator(
+                        this,
+                        matchingStrategySelector,
+                        createCostCalculator(forkJoinPool, minimumParallelGroupSize, outOfCoreCellsCount),
+                        identityKeys,
+                        blockingKeys,
+                        orderedXPaths,
+                        positionalXPaths)
+        );
+    }
+
+    private CostCalculator createCostCalculator(
+            ForkJoinPool forkJoinPool, int minimumParallelGroupSize, long outOfCoreCellsCount) {
+
+        if (forkJoinPool == null) {
+            return new CostCalculator(this, null, Integer.MAX_VALUE, outOfCoreCellsCount);
+        }
+
+        return new CostCalculator(this, forkJoinPool, minimumParallelGroupSize, outOfCoreCellsCount);
+    }
+
+    /**
+     * Counts of matching strategies chosen for groups of elements of the same type by all comparisons
+     * done by this comparator so far.
+     */
+    public MatchingStatistics getMatchingStatistics() {
+        return matchingStrategySelector.getMatchingStatistics();
+    }
+
+    /**
+     * Shuts down the pool used for parallel comparison, if there is one. Comparisons already started
+     * are completed, but documents cannot be compared in parallel by this comparator any more.
+     */
+    @Override
+    public void close() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+        }
     }
 
     public static XMLComparatorBuilder builder() {
@@ -61,40 +171,253 @@ public class XMLComparator {
         return builder().first(xmlDocument1).second(xmlDocument2).compare();
     }
 
-    XMLDiff compare() throws TransformerException, IOException {
+    public XMLDiff diff(String xml1, String xml2) throws TransformerException, IOException {
+        return diff(parse(xml1), parse(xml2));
+    }
+
+    public XMLDiff diff(XMLDocument xmlDocument1, XMLDocument xmlDocument2) {
+        ComparisonContext context = createContext(xmlDocument1, xmlDocument2);
+        DifferenceDetails differenceDetails = new DifferenceDetails();
+
+        diff(xmlDocument1, xmlDocument2, context, differenceDetails);
+
+        return new XMLDiff(xmlDocument1, xmlDocument2, differenceDetails, context.isTruncated());
+    }
+
+    /**
+     * Passes differences to given listener as soon as they are found instead of collecting them in {@link XMLDiff}.
+     * Differences of elements of the same type are reported after the best match between them has been found.
+     */
+    public void diff(XMLDocument xmlDocument1, XMLDocument xmlDocument2, DifferenceListener differenceListener) {
+        diff(xmlDocument1, xmlDocument2, createContext(xmlDocument1, xmlDocument2), differenceListener);
+    }
+
+    private void diff(
+            XMLDocument xmlDocument1, XMLDocument xmlDocument2,
+            ComparisonContext context, DifferenceListener differenceListener) {
+
         Node rootNode1 = xmlDocument1.getRootNode();
         Node rootNode2 = xmlDocument2.getRootNode();
 
-        DifferenceDetails differenceDetails;
+        DifferenceListener reportingDifferenceListener = new ReportingDifferenceListener(context, differenceListener);
 
         if (ObjectUtils.equals(rootNode1.getXPath(), rootNode2.getXPath())) {
-            differenceDetails = compare(rootNode1, rootNode2);
+            compare(rootNode1, rootNode2, context, reportingDifferenceListener);
         } else {
-            differenceDetails = DifferenceDetails.of(rootNode1, rootNode2, DifferenceCode.DIFFERENT_ROOT_NODE);
+            reportingDifferenceListener.onDifference(rootNode1, rootNode2, DifferenceCode.DIFFERENT_ROOT_NODE);
         }
+    }
+
+    /**
+     * Checks if documents have no differences, stopping at the first difference found.
+     * Values and attributes are checked before children and elements of the same type are only checked
+     * for a perfect match, without looking for the best match between them.
+     * <p>
+     * If there are XPaths to omit, a difference found may be omitted, so the documents are compared
+     * the same way as by {@link #diff(XMLDocument, XMLDocument)} until the first difference which is not omitted.
+     */
+    public boolean isEquivalent(XMLDocument xmlDocument1, XMLDocument xmlDocument2) {
+        ComparisonContext context = createContext(xmlDocument1, xmlDocument2);
+
+        if (!xPathsToOmit.isEmpty()) {
+            DifferenceCounter differenceCounter = new DifferenceCounter();
+
+            diff(xmlDocument1, xmlDocument2, context, differenceInformation -> {
+                differenceCounter.onDifference(differenceInformation);
+                context.stop();
+            });
 
-        return new XMLDiff(xmlDocument1, xmlDocument2, differenceDetails.filter(xPathsToOmitPredicate));
+            return differenceCounter.getCount() == 0;
+        }
+
+        Node rootNode1 = xmlDocument1.getRootNode();
+        Node rootNode2 = xmlDocument2.getRootNode();
+
+        return ObjectUtils.equals(rootNode1.getXPath(), rootNode2.getXPath())
+                && isEquivalent(rootNode1, rootNode2, context);
     }
 
-    public DifferenceDetails compare(Node node1, Node node2) {
-        return xmlComparatorSteps.stream()
-                .map(comparator -> comparator.compare(node1, node2))
-                .reduce(new DifferenceDetails(), DifferenceDetails::putAll);
+    /**
+     * Differences under XPaths to omit are counted but never reported, so the number of differences which
+     * can still be reported bounds costs of children groups only if there are no XPaths to omit.
+     */
+    private ComparisonContext createContext(XMLDocument xmlDocument1, XMLDocument xmlDocument2) {
+        return new ComparisonContext(
+                xmlDocument1.hasSubtreeHashesValidFor(valueExtractors, xPathsOfChildrenInOrder)
+                        && xmlDocument2.hasSubtreeHashesValidFor(valueExtractors, xPathsOfChildrenInOrder),
+                xPathsToOmit.isEmpty() ? maxDifferences : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Parses document with namespaces and value extractors of this comparator, so that it can be compared
+     * many times, e.g. as a baseline for {@link #diffAll(XMLDocument, Iterable)}.
+     */
+    public XMLDocument parse(String xml) throws TransformerException, IOException {
+        return XMLDocument.fromXML(xml, ignoreNamespaces, valueExtractors, xPathsOfChildrenInOrder, columnarDocuments);
+    }
+
+    /**
+     * Compares a baseline document, parsed only once, with each of candidates.
+     * Diffs are returned in order of candidates, the baseline is the first document of each diff.
+     */
+    public List<XMLDiff> diffAll(XMLDocument baseline, Iterable<String> candidates)
+            throws TransformerException, IOException {
+
+        List<XMLDiff> diffs = Lists.newArrayList();
+        diffAll(baseline, candidates, (diff, candidateIndex) -> diffs.add(diff));
+
+        return diffs;
     }
 
-    void setXmlDocument1(XMLDocument xmlDocument1) {
-        this.xmlDocument1 = xmlDocument1;
+    /**
+     * Compares a baseline document, parsed only once, with each of candidates and passes every diff
+     * with index of its candidate to given consumer. Consumer is called on the calling thread in order of candidates.
+     * <p>
+     * If parallelism is set, candidates are parsed and compared in parallel. At most as many candidates
+     * as the parallelism are compared at once, the next one is taken only after the diff of the first one
+     * has been passed to the consumer, so candidates and diffs do not pile up in memory.
+     */
+    public void diffAll(XMLDocument baseline, Iterable<String> candidates, ObjIntConsumer<XMLDiff> diffConsumer)
+            throws TransformerException, IOException {
+
+        if (forkJoinPool == null) {
+            int candidateIndex = 0;
+
+            for (String candidate : candidates) {
+                diffConsumer.accept(diff(baseline, parse(candidate)), candidateIndex++);
+            }
+        } else {
+            diffAllInParallel(baseline, candidates, diffConsumer);
+        }
+    }
+
+    private void diffAllInParallel(
+            XMLDocument baseline, Iterable<String> candidates, ObjIntConsumer<XMLDiff> diffConsumer)
+            throws TransformerException, IOException {
+
+        Iterator<String> candidatesIterator = candidates.iterator();
+        Deque<Future<XMLDiff>> diffs = new ArrayDeque<>();
+        int candidateIndex = 0;
+
+        try {
+            while (candidatesIterator.hasNext() || !diffs.isEmpty()) {
+                if (candidatesIterator.hasNext() && diffs.size() < forkJoinPool.getParallelism()) {
+                    String candidate = candidatesIterator.next();
+                    diffs.add(forkJoinPool.submit(() -> diff(baseline, parse(candidate))));
+                } else {
+                    diffConsumer.accept(diffs.poll().get(), candidateIndex++);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while comparing documents.", e);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), TransformerException.class);
+            Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            diffs.forEach(diff -> diff.cancel(true));
+        }
+    }
+
+    public void compare(Node node1, Node node2, ComparisonContext context, DifferenceListener differenceListener) {
+        if (context.isStopped() || context.haveEqualSubtreeHashes(node1, node2)) {
+            return;
+        }
+
+        xmlComparatorSteps.forEach(comparator -> comparator.compare(node1, node2, context, differenceListener));
+    }
+
+    public int countDifferences(Node node1, Node node2, ComparisonContext context) {
+        return countDifferences(node1, node2, context, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Counts differences only until there are at least {@code bound} of them, returning the bound then.
+     * Values and attributes are counted first, so children are not compared if they already reach the bound.
+     */
+    public int countDifferences(Node node1, Node node2, ComparisonContext context, int bound) {
+        if (context.haveEqualSubtreeHashes(node1, node2)) {
+            return 0;
+        }
+
+        int differencesCount = 0;
+
+        for (XMLComparatorStep xmlComparatorStep : xmlComparatorSteps) {
+            differencesCount += xmlComparatorStep.countDifferences(node1, node2, context, bound - differencesCount);
+
+            if (differencesCount >= bound) {
+                return bound;
+            }
+        }
+
+        return differencesCount;
     }
 
-    void setXmlDocument2(XMLDocument xmlDocument2) {
-        this.xmlDocument2 = xmlDocument2;
+    public boolean isEquivalent(Node node1, Node node2, ComparisonContext context) {
+        if (context.haveEqualSubtreeHashes(node1, node2)) {
+            return true;
+        }
+
+        return xmlComparatorSteps.stream()
+                .allMatch(comparator -> comparator.isEquivalent(node1, node2, context));
     }
 
-    void setXPathsToOmitPredicate(Predicate<DifferenceInformation> xPathsToOmitPredicate) {
-        this.xPathsToOmitPredicate = xPathsToOmitPredicate;
+    /**
+     * Passes to the listener differences which are not omitted, until maximum number of differences is reached.
+     */
+    private class ReportingDifferenceListener implements DifferenceListener {
+
+        private final ComparisonContext context;
+        private final DifferenceListener differenceListener;
+        private int reportedDifferences;
+
+        private ReportingDifferenceListener(ComparisonContext context, DifferenceListener differenceListener) {
+            this.context = context;
+            this.differenceListener = differenceListener;
+        }
+
+        @Override
+        public void onDifference(DifferenceInformation differenceInformation) {
+            if (context.isStopped() || !xPathsToOmitPredicate.test(differenceInformation)) {
+                return;
+            }
+
+            if (reportedDifferences == maxDifferences) {
+                onTruncated();
+            } else {
+                reportedDifferences++;
+                context.onDifferenceReported();
+                differenceListener.onDifference(differenceInformation);
+            }
+        }
+
+        @Override
+        public void onTruncated() {
+            if (!context.isStopped()) {
+                context.truncate();
+                differenceListener.onTruncated();
+            }
+        }
     }
 
-    void setXmlComparatorSteps(List<XMLComparatorStep> xmlComparatorSteps) {
-        this.xmlComparatorSteps = xmlComparatorSteps;
+    private static class XPathsToOmitPredicate implements Predicate<DifferenceInformation> {
+
+        private Collection<String> xPathsToOmit;
+
+        private XPathsToOmitPredicate(Collection<String> xPathsToOmit) {
+            this.xPathsToOmit = xPathsToOmit;
+        }
+
+        @Override
+        public boolean test(DifferenceInformation differenceInformation) {
+            for (String xPathToOmit : xPathsToOmit) {
+                if (differenceInformation.getXPath().contains(xPathToOmit)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
     }
 }
@@ -26,23 +26,23 @@ package com.github.lukaszkusek.xml.comparator;
 import javax.xml.transform.TransformerException;
 import java.io.IOException;
 import java.net.URL;
-import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.Predicate;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Pattern;
 
-import com.github.lukaszkusek.xml.comparator.comparators.XMLComparatorStep;
-import com.github.lukaszkusek.xml.comparator.comparators.attributes.XMLAttributesComparator;
-import com.github.lukaszkusek.xml.comparator.comparators.children.XMLChildrenIgnoringOrderComparator;
-import com.github.lukaszkusek.xml.comparator.comparators.order.XMLCheckChildrenOrderComparator;
-import com.github.lukaszkusek.xml.comparator.comparators.values.XMLValuesComparator;
-import com.github.lukaszkusek.xml.comparator.diff.DifferenceInformation;
+import com.github.lukaszkusek.xml.comparator.comparators.children.IdentityKey;
+import com.github.lukaszkusek.xml.comparator.comparators.children.MatchingStrategySelector;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostCalculator;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.AuctionMinimumCostAssignmentCalculator;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.HungarianMinimumCostAssignmentCalculator;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.JonkerVolgenantMinimumCostAssignmentCalculator;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.MinimumCostAssignmentCalculator;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceListener;
 import com.github.lukaszkusek.xml.comparator.diff.XMLDiff;
 import com.github.lukaszkusek.xml.comparator.document.XMLDocument;
 import com.google.common.base.Charsets;
-import com.google.common.collect.ImmutableList;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
@@ -50,7 +50,7 @@ import com.google.common.io.Resources;
 
 public class XMLComparatorBuilder {
 
-    private XMLComparator xmlComparator;
+    private static final int DEFAULT_MINIMUM_PARALLEL_GROUP_SIZE = 32;
 
     private String xml1;
     private XMLDocument xmlDocument1;
@@ -58,14 +58,31 @@ public class XMLComparatorBuilder {
 
     private XMLDocument xmlDocument2;
     private boolean ignoreNamespaces;
+    private boolean columnarDocuments;
     private Set<String> xPathsToOmit;
 
     private Map<String, Pattern> valueExtractors;
-    private List<XMLComparatorStep> xmlComparatorSteps;
+    private Map<String, IdentityKey> identityKeys;
+    private Map<String, IdentityKey> blockingKeys;
+    private Set<String> orderedXPaths;
+    private Set<String> positionalXPaths;
+    private MinimumCostAssignmentCalculator minimumCostAssignmentCalculator;
+    private MinimumCostAssignmentCalculator largeGroupMinimumCostAssignmentCalculator;
+    private int largeGroupSize;
+    private int parallelism;
+    private int minimumParallelGroupSize;
+    private long outOfCoreCellsCount;
+    private int maxDifferences;
 
     XMLComparatorBuilder() {
-        this.xmlComparator = new XMLComparator();
         this.ignoreNamespaces = true;
+        this.minimumCostAssignmentCalculator = new HungarianMinimumCostAssignmentCalculator();
+        this.largeGroupMinimumCostAssignmentCalculator = new JonkerVolgenantMinimumCostAssignmentCalculator();
+        this.largeGroupSize = MatchingStrategySelector.DEFAULT_LARGE_GROUP_SIZE;
+        this.parallelism = 1;
+        this.minimumParallelGroupSize = DEFAULT_MINIMUM_PARALLEL_GROUP_SIZE;
+        this.outOfCoreCellsCount = CostCalculator.DEFAULT_OUT_OF_CORE_CELLS_COUNT;
+        this.maxDifferences = Integer.MAX_VALUE;
     }
 
     public XMLComparatorBuilder first(String xml1) {
@@ -93,6 +110,15 @@ public class XMLComparatorBuilder {
         return this;
     }
 
+    /**
+     * Parses documents into columnar trees of primitive arrays read through flyweight Nodes,
+     * which takes several times less memory for very large documents, but is slower to compare.
+     */
+    public XMLComparatorBuilder columnarDocuments(boolean columnarDocuments) {
+        this.columnarDocuments = columnarDocuments;
+        return this;
+    }
+
     public XMLComparatorBuilder xPathsToOmit(Set<String> xPathsToOmit) {
         this.xPathsToOmit = xPathsToOmit;
         return this;
@@ -108,62 +134,187 @@ public class XMLComparatorBuilder {
         return this;
     }
 
-    public XMLDiff compare() throws TransformerException, IOException {
-        prepareParameters();
-        prepareComparators();
+    /**
+     * Elements of the same type with given simple XPath are matched by equal keys extracted using given expressions,
+     * e.g. {@code "@id"} or {@code "accountNumber"}. Elements with a key not found in the other document are reported
+     * as missing, only elements without a key are matched by the best match algorithm.
+     */
+    public XMLComparatorBuilder identityKeys(Map<String, String> identityKeys) {
+        this.identityKeys = Maps.transformValues(identityKeys, IdentityKey::compile);
+        return this;
+    }
 
-        xmlComparator.setXmlDocument1(xmlDocument1);
-        xmlComparator.setXmlDocument2(xmlDocument2);
-        xmlComparator.setXPathsToOmitPredicate(new XPathsToOmitPredicate(xPathsToOmit));
-        xmlComparator.setXmlComparatorSteps(xmlComparatorSteps);
+    /**
+     * Large groups of elements of the same type with given simple XPath are split into blocks of elements with equal
+     * keys extracted using given expressions, e.g. {@code "@type"}. Elements are matched within their blocks first
+     * and only elements left unmatched there are matched across blocks, which is much faster than the best match
+     * between all of them, but may miss better matches of elements with different keys.
+     */
+    public XMLComparatorBuilder blockingKeys(Map<String, String> blockingKeys) {
+        this.blockingKeys = Maps.transformValues(blockingKeys, IdentityKey::compile);
+        return this;
+    }
 
-        return xmlComparator.compare();
+    /**
+     * Elements of the same type with given simple XPaths are compared in order of the documents, so that
+     * inserted, removed and modified elements are found instead of the best match between all of them.
+     */
+    public XMLComparatorBuilder orderedXPaths(Set<String> orderedXPaths) {
+        this.orderedXPaths = orderedXPaths;
+        return this;
     }
 
-    private void prepareParameters() throws TransformerException, IOException {
-        if (xmlDocument1 == null) {
-            xmlDocument1 = XMLDocument.fromXML(xml1, ignoreNamespaces);
-        }
+    /**
+     * Elements of the same type with given simple XPaths are paired by their positions in the documents,
+     * which is the cheapest way of comparing fixed layout records. Surplus elements are reported as missing.
+     */
+    public XMLComparatorBuilder positionalXPaths(Set<String> positionalXPaths) {
+        this.positionalXPaths = positionalXPaths;
+        return this;
+    }
 
-        if (xmlDocument2 == null) {
-            xmlDocument2 = XMLDocument.fromXML(xml2, ignoreNamespaces);
-        }
+    /**
+     * Algorithm used to find the best match between elements of the same type.
+     * {@link HungarianMinimumCostAssignmentCalculator} is used by default,
+     * {@link JonkerVolgenantMinimumCostAssignmentCalculator} is usually faster for big collections of elements.
+     * Collections of at least {@link #largeGroupSize(int)} elements use
+     * {@link #largeGroupMinimumCostAssignmentCalculator(MinimumCostAssignmentCalculator)} instead.
+     */
+    public XMLComparatorBuilder minimumCostAssignmentCalculator(
+            MinimumCostAssignmentCalculator minimumCostAssignmentCalculator) {
 
-        if (xPathsToOmit == null) {
-            xPathsToOmit = ImmutableSet.of();
-        }
+        this.minimumCostAssignmentCalculator = minimumCostAssignmentCalculator;
+        return this;
+    }
 
-        if (valueExtractors == null) {
-            valueExtractors = ImmutableMap.of();
-        }
+    /**
+     * Algorithm used to find the best match between elements of the same type in large collections,
+     * {@link JonkerVolgenantMinimumCostAssignmentCalculator} by default.
+     */
+    public XMLComparatorBuilder largeGroupMinimumCostAssignmentCalculator(
+            MinimumCostAssignmentCalculator largeGroupMinimumCostAssignmentCalculator) {
+
+        this.largeGroupMinimumCostAssignmentCalculator = largeGroupMinimumCostAssignmentCalculator;
+        return this;
     }
 
-    private void prepareComparators() {
-        xmlComparatorSteps = ImmutableList.of(
-                new XMLValuesComparator(valueExtractors),
-                new XMLAttributesComparator(valueExtractors),
-                new XMLCheckChildrenOrderComparator(),
-                new XMLChildrenIgnoringOrderComparator(xmlComparator)
-        );
+    /**
+     * Minimal number of elements of the same type left without an identical counterpart in one of documents
+     * for the collection to be treated as large (64 by default).
+     */
+    public XMLComparatorBuilder largeGroupSize(int largeGroupSize) {
+        Preconditions.checkArgument(largeGroupSize > 1, "Large group size has to be greater than 1.");
+
+        this.largeGroupSize = largeGroupSize;
+        return this;
     }
 
-    private static class XPathsToOmitPredicate implements Predicate<DifferenceInformation> {
+    /**
+     * Number of threads used to compare elements of the same type, 1 (default) means comparing on the calling thread.
+     * Only collections of at least {@link #minimumParallelGroupSize(int)} elements are compared in parallel.
+     */
+    public XMLComparatorBuilder parallelism(int parallelism) {
+        Preconditions.checkArgument(parallelism > 0, "Parallelism has to be positive.");
+
+        this.parallelism = parallelism;
+        return this;
+    }
 
-        private Collection<String> xPathsToOmit;
+    /**
+     * Minimal number of elements of the same type in both documents together to compare them in parallel.
+     */
+    public XMLComparatorBuilder minimumParallelGroupSize(int minimumParallelGroupSize) {
+        Preconditions.checkArgument(minimumParallelGroupSize > 0, "Minimum parallel group size has to be positive.");
 
-        private XPathsToOmitPredicate(Collection<String> xPathsToOmit) {
-            this.xPathsToOmit = xPathsToOmit;
-        }
+        this.minimumParallelGroupSize = minimumParallelGroupSize;
+        return this;
+    }
 
-        @Override
-        public boolean test(DifferenceInformation differenceInformation) {
-            for (String xPathToOmit : xPathsToOmit) {
-                if (differenceInformation.getXPath().contains(xPathToOmit)) {
-                    return false;
-                }
-            }
+    /**
+     * Minimal number of pairs of elements of the same type (2^28 by default) for their costs to be kept
+     * in a memory-mapped temporary file instead of the heap. The best match between such elements is found
+     * by {@link AuctionMinimumCostAssignmentCalculator}, which does not need all costs in the heap.
+     */
+    public XMLComparatorBuilder outOfCoreCellsCount(long outOfCoreCellsCount) {
+        Preconditions.checkArgument(outOfCoreCellsCount > 0, "Out of core cells count has to be positive.");
 
-            return true;
+        this.outOfCoreCellsCount = outOfCoreCellsCount;
+        return this;
+    }
+
+    /**
+     * Comparison stops after given number of differences has been found and the diff is marked as truncated
+     * if there are more of them.
+     */
+    public XMLComparatorBuilder maxDifferences(int maxDifferences) {
+        Preconditions.checkArgument(maxDifferences > 0, "Maximum number of differences has to be positive.");
+
+        this.maxDifferences = maxDifferences;
+        return this;
+    }
+
+    /**
+     * Creates immutable comparator which can be reused and shared between threads.
+     * Documents given by {@link #first} and {@link #second} are not used by it.
+     * If parallelism is set, the comparator owns a fork-join pool and has to be closed to shut it down.
+     */
+    public XMLComparator build() {
+        return new XMLComparator(
+                ignoreNamespaces,
+                columnarDocuments,
+                valueExtractors == null ? ImmutableMap.of() : ImmutableMap.copyOf(valueExtractors),
+                xPathsToOmit == null ? ImmutableSet.of() : ImmutableSet.copyOf(xPathsToOmit),
+                identityKeys == null ? ImmutableMap.of() : ImmutableMap.copyOf(identityKeys),
+                blockingKeys == null ? ImmutableMap.of() : ImmutableMap.copyOf(blockingKeys),
+                orderedXPaths == null ? ImmutableSet.of() : ImmutableSet.copyOf(orderedXPaths),
+                positionalXPaths == null ? ImmutableSet.of() : ImmutableSet.copyOf(positionalXPaths),
+                new MatchingStrategySelector(
+                        minimumCostAssignmentCalculator, largeGroupMinimumCostAssignmentCalculator, largeGroupSize),
+                parallelism > 1 ? new ForkJoinPool(parallelism) : null,
+                minimumParallelGroupSize,
+                outOfCoreCellsCount,
+                maxDifferences);
+    }
+
+    public XMLDiff compare() throws TransformerException, IOException {
+        return call(XMLComparator::diff);
+    }
+
+    /**
+     * Passes differences to given listener as soon as they are found instead of collecting them in {@link XMLDiff}.
+     */
+    public void compare(DifferenceListener differenceListener) throws TransformerException, IOException {
+        call((xmlComparator, xmlDocument1, xmlDocument2) -> {
+            xmlComparator.diff(xmlDocument1, xmlDocument2, differenceListener);
+            return null;
+        });
+    }
+
+    /**
+     * Checks if documents have no differences, stopping at the first difference found.
+     */
+    public boolean isEquivalent() throws TransformerException, IOException {
+        return call(XMLComparator::isEquivalent);
+    }
+
+    private <T> T call(XMLComparatorCall<T> xmlComparatorCall) throws TransformerException, IOException {
+        try (XMLComparator xmlComparator = build()) {
+            return xmlComparatorCall.call(
+                    xmlComparator, getXmlDocument1(xmlComparator), getXmlDocument2(xmlComparator));
         }
     }
+
+    private XMLDocument getXmlDocument1(XMLComparator xmlComparator) throws TransformerException, IOException {
+        return xmlDocument1 == null ? xmlComparator.parse(xml1) : xmlDocument1;
+    }
+
+    private XMLDocument getXmlDocument2(XMLComparator xmlComparator) throws TransformerException, IOException {
+        return xmlDocument2 == null ? xmlComparator.parse(xml2) : xmlDocument2;
+    }
+
+    private interface XMLComparatorCall<T> {
+
+        T call(XMLComparator xmlComparator, XMLDocument xmlDocument1, XMLDocument xmlDocument2)
+                throws TransformerException, IOException;
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators;
+
+import com.github.lukaszkusek.xml.comparator.node.Node;
+
+/**
+ * State of a single comparison of two documents, passed down to all comparator steps.
+ * Comparator itself keeps only configuration, so it can be shared between threads.
+ */
+public class ComparisonContext {
+
+    private final boolean subtreeHashesComparable;
+
+    private volatile boolean stopped;
+
+    private volatile boolean truncated;
+
+    private long remainingDifferences;
+
+    public ComparisonContext(boolean subtreeHashesComparable) {
+        this(subtreeHashesComparable, Integer.MAX_VALUE);
+    }
+
+    /**
+     * At most {@code maxDifferences} differences are going to be reported, so costs of children groups
+     * are counted only up to the number of differences which can still be reported.
+     */
+    public ComparisonContext(boolean subtreeHashesComparable, int maxDifferences) {
+        this.subtreeHashesComparable = subtreeHashesComparable;
+        this.remainingDifferences = maxDifferences;
+    }
+
+    public boolean hasComparableSubtreeHashes() {
+        return subtreeHashesComparable;
+    }
+
+    /**
+     * No more differences are reported after the comparison is stopped.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Stops the comparison because there are more differences than allowed to be reported.
+     */
+    public void truncate() {
+        truncated = true;
+        stopped = true;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void onDifferenceReported() {
+        remainingDifferences--;
+    }
+
+    /**
+     * A group of children reaching this bound has more differences than can still be reported,
+     * so the comparison is truncated after reporting it. The bound is not reached
+     * if the number of differences is not limited.
+     */
+    public int getReportingBound() {
+        return (int) Math.min(remainingDifferences + 1, Integer.MAX_VALUE);
+    }
+
+    public boolean haveEqualSubtreeHashes(Node node1, Node node2) {
+        return subtreeHashesComparable && node1.getSubtreeHash() == node2.getSubtreeHash();
+    }
+}
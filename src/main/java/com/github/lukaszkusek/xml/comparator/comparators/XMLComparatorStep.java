@@ -23,10 +23,38 @@
 
 package com.github.lukaszkusek.xml.comparator.comparators;
 
-import com.github.lukaszkusek.xml.comparator.diff.DifferenceDetails;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceCounter;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceListener;
 import com.github.lukaszkusek.xml.comparator.node.Node;
 
 public interface XMLComparatorStep {
 
-    DifferenceDetails compare(Node node1, Node node2);
+    /**
+     * Reports differences of given nodes to the listener as soon as they are found.
+     */
+    void compare(Node node1, Node node2, ComparisonContext context, DifferenceListener differenceListener);
+
+    /**
+     * Counts differences without keeping their details. Used to fill children cost matrices.
+     */
+    default int countDifferences(Node node1, Node node2, ComparisonContext context) {
+        DifferenceCounter differenceCounter = new DifferenceCounter();
+        compare(node1, node2, context, differenceCounter);
+
+        return differenceCounter.getCount();
+    }
+
+    /**
+     * Counts differences only until there are at least {@code bound} of them, returning the bound then.
+     */
+    default int countDifferences(Node node1, Node node2, ComparisonContext context, int bound) {
+        return Math.min(countDifferences(node1, node2, context), bound);
+    }
+
+    /**
+     * Checks if given nodes have no differences, which can be done without counting all of them.
+     */
+    default boolean isEquivalent(Node node1, Node node2, ComparisonContext context) {
+        return countDifferences(node1, node2, context) == 0;
+    }
 }
@@ -27,9 +27,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
 import com.github.lukaszkusek.xml.comparator.comparators.XMLComparatorStep;
 import com.github.lukaszkusek.xml.comparator.diff.DifferenceCode;
-import com.github.lukaszkusek.xml.comparator.diff.DifferenceDetails;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceListener;
 import com.github.lukaszkusek.xml.comparator.node.Node;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang.ObjectUtils;
@@ -43,27 +44,37 @@ public class XMLAttributesComparator implements XMLComparatorStep {
     }
 
     @Override
-    public DifferenceDetails compare(Node node1, Node node2) {
-        return getAttributesNamesToIterate(node1, node2).stream()
-                .map(attributeName -> compareAttributesWithTheSameName(node1, node2, attributeName))
-                .reduce(new DifferenceDetails(), DifferenceDetails::putAll);
+    public void compare(Node node1, Node node2, ComparisonContext context, DifferenceListener differenceListener) {
+        getAttributesNamesToIterate(node1, node2)
+                .forEach(attributeName ->
+                        compareAttributesWithTheSameName(node1, node2, attributeName, differenceListener));
     }
 
-    private DifferenceDetails compareAttributesWithTheSameName(Node node1, Node node2, String attributeName) {
-        Pattern pattern = valueExtractors.get(node1.getXPath() + "/@" + attributeName);
+    @Override
+    public boolean isEquivalent(Node node1, Node node2, ComparisonContext context) {
+        return getAttributesNamesToIterate(node1, node2).stream()
+                .allMatch(attributeName -> haveEqualValues(node1, node2, attributeName));
+    }
 
-        String attribute1Value = node1.extractAttributeValue(attributeName, pattern);
-        String attribute2Value = node2.extractAttributeValue(attributeName, pattern);
+    private void compareAttributesWithTheSameName(
+            Node node1, Node node2, String attributeName, DifferenceListener differenceListener) {
 
-        if (!ObjectUtils.equals(attribute1Value, attribute2Value)) {
-            return DifferenceDetails.of(
+        if (!haveEqualValues(node1, node2, attributeName)) {
+            differenceListener.onDifference(
                     node1,
                     node2,
                     attributeName,
                     DifferenceCode.DIFFERENT_ATTRIBUTE_VALUE);
         }
+    }
+
+    private boolean haveEqualValues(Node node1, Node node2, String attributeName) {
+        Pattern pattern = valueExtractors.get(node1.getXPath() + "/@" + attributeName);
+
+        String attribute1Value = node1.extractAttributeValue(attributeName, pattern);
+        String attribute2Value = node2.extractAttributeValue(attributeName, pattern);
 
-        return DifferenceDetails.empty();
+        return ObjectUtils.equals(attribute1Value, attribute2Value);
     }
 
     private Set<String> getAttributesNamesToIterate(Node node1, Node node2) {
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.ExactMatchFilter.UnmatchedChildren;
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Partitions children of large groups into blocks of children with equal blocking keys, extracted the same way
+ * as {@link IdentityKey}s. Unlike identity keys, blocking keys are not expected to be unique, so children
+ * of a block are assigned to each other by minimum cost assignment. Children without a key, with a key found
+ * in one document only or left unassigned in their block are assigned to each other across blocks afterwards.
+ */
+class BlockingKeyFilter {
+
+    private final Map<String, IdentityKey> blockingKeys;
+
+    BlockingKeyFilter(Map<String, IdentityKey> blockingKeys) {
+        this.blockingKeys = blockingKeys;
+    }
+
+    boolean hasBlockingKey(String childrenXPath) {
+        return blockingKeys.containsKey(childrenXPath);
+    }
+
+    Blocks partition(String childrenXPath, UnmatchedChildren unmatchedChildren) {
+        IdentityKey blockingKey = blockingKeys.get(childrenXPath);
+        List<Node> unblockedChildren1 = Lists.newArrayList();
+        List<Node> unblockedChildren2 = Lists.newArrayList();
+        Map<String, List<Node>> children1ByKey =
+                indexByKey(unmatchedChildren.getChildren1(), blockingKey, unblockedChildren1);
+        Map<String, List<Node>> children2ByKey =
+                indexByKey(unmatchedChildren.getChildren2(), blockingKey, unblockedChildren2);
+
+        List<UnmatchedChildren> blocks = Lists.newArrayList();
+
+        children1ByKey.forEach((key, children1) -> {
+            List<Node> children2 = children2ByKey.remove(key);
+
+            if (children2 == null) {
+                unblockedChildren1.addAll(children1);
+            } else {
+                blocks.add(new UnmatchedChildren(children1, children2));
+            }
+        });
+
+        children2ByKey.values().forEach(unblockedChildren2::addAll);
+
+        return new Blocks(blocks, new UnmatchedChildren(unblockedChildren1, unblockedChildren2));
+    }
+
+    private Map<String, List<Node>> indexByKey(
+            Collection<Node> children, IdentityKey blockingKey, List<Node> childrenWithoutKey) {
+
+        Map<String, List<Node>> childrenByKey = Maps.newLinkedHashMap();
+
+        for (Node child : children) {
+            String key = blockingKey.extract(child);
+
+            if (key == null) {
+                childrenWithoutKey.add(child);
+            } else {
+                childrenByKey.computeIfAbsent(key, k -> Lists.newArrayList()).add(child);
+            }
+        }
+
+        return childrenByKey;
+    }
+
+    /**
+     * Blocks having children in both documents and children not in any of them.
+     */
+    static class Blocks {
+
+        private final List<UnmatchedChildren> blocks;
+        private final UnmatchedChildren unblockedChildren;
+
+        private Blocks(List<UnmatchedChildren> blocks, UnmatchedChildren unblockedChildren) {
+            this.blocks = blocks;
+            this.unblockedChildren = unblockedChildren;
+        }
+
+        List<UnmatchedChildren> getBlocks() {
+            return blocks;
+        }
+
+        UnmatchedChildren getUnblockedChildren() {
+            return unblockedChildren;
+        }
+    }
+}
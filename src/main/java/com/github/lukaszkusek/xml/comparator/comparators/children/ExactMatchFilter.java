@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Pairs children with equal subtree hashes using a hash join, so that only children
+ * without an identical counterpart have to be compared with each other.
+ * Such pairs have no differences, so nothing is reported for them.
+ * <p>
+ * Identical children are paired starting from the last ones, so when one side has more of them,
+ * the first ones are left unmatched.
+ */
+class ExactMatchFilter {
+
+    UnmatchedChildren filter(Collection<Node> children1, Collection<Node> children2, ComparisonContext context) {
+        if (!context.hasComparableSubtreeHashes() || children1.isEmpty() || children2.isEmpty()) {
+            return new UnmatchedChildren(children1, children2);
+        }
+
+        Map<Long, Deque<Node>> children2BySubtreeHash = indexBySubtreeHash(children2);
+        List<Node> unmatchedChildren1 = Lists.newArrayList();
+
+        for (Node child1 : Lists.reverse(ImmutableList.copyOf(children1))) {
+            Deque<Node> identicalChildren2 = children2BySubtreeHash.get(child1.getSubtreeHash());
+
+            if (identicalChildren2 == null || identicalChildren2.isEmpty()) {
+                unmatchedChildren1.add(child1);
+            } else {
+                identicalChildren2.pollLast();
+            }
+        }
+
+        Collections.reverse(unmatchedChildren1);
+
+        List<Node> unmatchedChildren2 = Lists.newArrayList();
+        children2BySubtreeHash.values().forEach(unmatchedChildren2::addAll);
+
+        return new UnmatchedChildren(unmatchedChildren1, unmatchedChildren2);
+    }
+
+    private Map<Long, Deque<Node>> indexBySubtreeHash(Collection<Node> children) {
+        Map<Long, Deque<Node>> childrenBySubtreeHash = Maps.newLinkedHashMap();
+
+        children.forEach(child ->
+                childrenBySubtreeHash
+                        .computeIfAbsent(child.getSubtreeHash(), subtreeHash -> new ArrayDeque<>())
+                        .add(child));
+
+        return childrenBySubtreeHash;
+    }
+
+    static class UnmatchedChildren {
+
+        private Collection<Node> children1;
+        private Collection<Node> children2;
+
+        UnmatchedChildren(Collection<Node> children1, Collection<Node> children2) {
+            this.children1 = children1;
+            this.children2 = children2;
+        }
+
+        Collection<Node> getChildren1() {
+            return children1;
+        }
+
+        Collection<Node> getChildren2() {
+            return children2;
+        }
+
+        boolean isEmpty() {
+            return children1.isEmpty() && children2.isEmpty();
+        }
+
+        boolean isSinglePair() {
+            return children1.size() == 1 && children2.size() == 1;
+        }
+
+        Node getChild1() {
+            return Iterables.getOnlyElement(children1);
+        }
+
+        Node getChild2() {
+            return Iterables.getOnlyElement(children2);
+        }
+    }
+}
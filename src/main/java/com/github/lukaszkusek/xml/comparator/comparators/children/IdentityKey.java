@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+import java.util.List;
+
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+/**
+ * Expression extracting a key identifying an element among elements of the same type, relative to that element.
+ * <p>
+ * The expression is a path of child element names optionally ending with an attribute,
+ * e.g. {@code @id}, {@code accountNumber} or {@code code/@value}. The key is the value of the first element
+ * found on the path, or the value of the attribute. Elements without such element or attribute have no key.
+ */
+public class IdentityKey {
+
+    private static final String ATTRIBUTE_PREFIX = "@";
+
+    private final List<String> childrenNames;
+    private final String attributeName;
+
+    private IdentityKey(List<String> childrenNames, String attributeName) {
+        this.childrenNames = childrenNames;
+        this.attributeName = attributeName;
+    }
+
+    public static IdentityKey compile(String expression) {
+        List<String> steps = Splitter.on('/').trimResults().splitToList(expression);
+        Preconditions.checkArgument(
+                !steps.contains(""), "Identity key expression has to be a path of names: %s", expression);
+
+        String lastStep = Iterables.getLast(steps);
+
+        if (lastStep.startsWith(ATTRIBUTE_PREFIX)) {
+            return new IdentityKey(
+                    ImmutableList.copyOf(steps.subList(0, steps.size() - 1)),
+                    lastStep.substring(ATTRIBUTE_PREFIX.length()));
+        }
+
+        return new IdentityKey(ImmutableList.copyOf(steps), null);
+    }
+
+    /**
+     * @return key of given element or {@code null} if it has none
+     */
+    public String extract(Node node) {
+        Node keyNode = node;
+
+        for (String childName : childrenNames) {
+            keyNode = Iterables.getFirst(keyNode.getChildren(keyNode.getSimpleXPath() + "/" + childName), null);
+
+            if (keyNode == null) {
+                return null;
+            }
+        }
+
+        return attributeName == null ? keyNode.getValue() : keyNode.getAttribute(attributeName);
+    }
+}
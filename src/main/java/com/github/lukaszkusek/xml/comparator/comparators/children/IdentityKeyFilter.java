@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.ExactMatchFilter.UnmatchedChildren;
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Pairs children having an {@link IdentityKey} by equal keys using a hash join. Children with a key not found
+ * in the other document are missing there, only children without a key are left for minimum cost assignment.
+ */
+class IdentityKeyFilter {
+
+    private final Map<String, IdentityKey> identityKeys;
+
+    IdentityKeyFilter(Map<String, IdentityKey> identityKeys) {
+        this.identityKeys = identityKeys;
+    }
+
+    boolean hasIdentityKey(String childrenXPath) {
+        return identityKeys.containsKey(childrenXPath);
+    }
+
+    MatchedChildren filter(String childrenXPath, UnmatchedChildren unmatchedChildren) {
+        IdentityKey identityKey = identityKeys.get(childrenXPath);
+
+        if (identityKey == null || unmatchedChildren.isEmpty()) {
+            return MatchedChildren.unmatched(unmatchedChildren);
+        }
+
+        List<Node> childrenWithoutKey2 = Lists.newArrayList();
+        Map<String, Deque<Node>> children2ByKey =
+                indexByKey(unmatchedChildren.getChildren2(), identityKey, childrenWithoutKey2);
+
+        List<Map.Entry<Node, Node>> pairs = Lists.newArrayList();
+        List<Node> missingChildren2 = Lists.newArrayList();
+        List<Node> childrenWithoutKey1 = Lists.newArrayList();
+
+        for (Node child1 : unmatchedChildren.getChildren1()) {
+            String key = identityKey.extract(child1);
+
+            if (key == null) {
+                childrenWithoutKey1.add(child1);
+                continue;
+            }
+
+            Deque<Node> children2 = children2ByKey.get(key);
+
+            if (children2 == null || children2.isEmpty()) {
+                missingChildren2.add(child1);
+            } else {
+                pairs.add(Maps.immutableEntry(child1, children2.poll()));
+            }
+        }
+
+        List<Node> missingChildren1 = Lists.newArrayList();
+        children2ByKey.values().forEach(missingChildren1::addAll);
+
+        return new MatchedChildren(
+                pairs,
+                missingChildren2,
+                missingChildren1,
+                new UnmatchedChildren(childrenWithoutKey1, childrenWithoutKey2));
+    }
+
+    private Map<String, Deque<Node>> indexByKey(
+            Collection<Node> children, IdentityKey identityKey, List<Node> childrenWithoutKey) {
+
+        Map<String, Deque<Node>> childrenByKey = Maps.newLinkedHashMap();
+
+        for (Node child : children) {
+            String key = identityKey.extract(child);
+
+            if (key == null) {
+                childrenWithoutKey.add(child);
+            } else {
+                childrenByKey.computeIfAbsent(key, k -> new ArrayDeque<>()).add(child);
+            }
+        }
+
+        return childrenByKey;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.ExactMatchFilter.UnmatchedChildren;
+import com.github.lukaszkusek.xml.comparator.node.Node;
+
+/**
+ * Children of the same type paired without minimum cost assignment. Paired children are compared with each other,
+ * children missing in the other document are reported as such and only unmatched children are left
+ * for minimum cost assignment.
+ */
+class MatchedChildren {
+
+    private final List<Map.Entry<Node, Node>> pairs;
+    private final List<Node> missingInSecondDocument;
+    private final List<Node> missingInFirstDocument;
+    private final UnmatchedChildren unmatchedChildren;
+
+    MatchedChildren(
+            List<Map.Entry<Node, Node>> pairs,
+            List<Node> missingInSecondDocument,
+            List<Node> missingInFirstDocument,
+            UnmatchedChildren unmatchedChildren) {
+
+        this.pairs = pairs;
+        this.missingInSecondDocument = missingInSecondDocument;
+        this.missingInFirstDocument = missingInFirstDocument;
+        this.unmatchedChildren = unmatchedChildren;
+    }
+
+    static MatchedChildren unmatched(UnmatchedChildren unmatchedChildren) {
+        return new MatchedChildren(
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), unmatchedChildren);
+    }
+
+    List<Map.Entry<Node, Node>> getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Children of the first document without a counterpart in the second one.
+     */
+    List<Node> getMissingInSecondDocument() {
+        return missingInSecondDocument;
+    }
+
+    /**
+     * Children of the second document without a counterpart in the first one.
+     */
+    List<Node> getMissingInFirstDocument() {
+        return missingInFirstDocument;
+    }
+
+    int getMissingChildrenCount() {
+        return missingInSecondDocument.size() + missingInFirstDocument.size();
+    }
+
+    UnmatchedChildren getUnmatchedChildren() {
+        return unmatchedChildren;
+    }
+}
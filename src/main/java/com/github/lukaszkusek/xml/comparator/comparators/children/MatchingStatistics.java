@@ -20,51 +20,42 @@
  * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
  * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
+package com.github.lukaszkusek.xml.comparator.comparators.children;
 
-package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
-import com.github.lukaszkusek.xml.comparator.diff.DifferenceDetails;
+import com.google.common.collect.Maps;
 
-public class CostEntry {
-
-    private boolean assigned;
-    private boolean taken;
-    private DifferenceDetails differenceDetails;
-
-    CostEntry(boolean taken) {
-        this.taken = taken;
-    }
-
-    CostEntry(DifferenceDetails differenceDetails) {
-        this.differenceDetails = differenceDetails;
-    }
-
-    CostEntry(boolean assigned, DifferenceDetails differenceDetails) {
-        this.assigned = assigned;
-        this.differenceDetails = differenceDetails;
-    }
+/**
+ * Counts how many times each {@link MatchingStrategy} has been chosen. Counters are shared by all threads
+ * using the same comparator, so they can be read while documents are being compared.
+ */
+public class MatchingStatistics {
 
-    static CostEntry taken() {
-        return new CostEntry(true);
-    }
+    private final Map<MatchingStrategy, LongAdder> counters = new EnumMap<>(MatchingStrategy.class);
 
-    static CostEntry of(DifferenceDetails differenceDetails) {
-        return new CostEntry(differenceDetails);
+    MatchingStatistics() {
+        for (MatchingStrategy matchingStrategy : MatchingStrategy.values()) {
+            counters.put(matchingStrategy, new LongAdder());
+        }
     }
 
-    static CostEntry assign(DifferenceDetails differenceDetails) {
-        return new CostEntry(true, differenceDetails);
+    void record(MatchingStrategy matchingStrategy) {
+        counters.get(matchingStrategy).increment();
     }
 
-    public boolean isNotTaken() {
-        return !taken;
+    public long getCount(MatchingStrategy matchingStrategy) {
+        return counters.get(matchingStrategy).sum();
     }
 
-    public boolean isAssigned() {
-        return assigned;
+    public Map<MatchingStrategy, Long> getCounts() {
+        return Maps.newEnumMap(Maps.transformValues(counters, LongAdder::sum));
     }
 
-    DifferenceDetails getDifferenceDetails() {
-        return differenceDetails;
+    @Override
+    public String toString() {
+        return getCounts().toString();
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+/**
+ * Ways of matching children of the same type, chosen separately for each group of children.
+ */
+public enum MatchingStrategy {
+    /**
+     * Children paired by their positions.
+     */
+    POSITIONAL,
+    /**
+     * Children matched in order of the documents.
+     */
+    ORDERED,
+    /**
+     * Children paired by equal identity keys.
+     */
+    IDENTITY_KEYS,
+    /**
+     * All children paired by equal subtree hashes, nothing left to match.
+     */
+    EXACT_MATCH,
+    /**
+     * A large group of children split into blocks of children with equal blocking keys, each assigned separately.
+     */
+    BLOCKING,
+    /**
+     * A single child left in each document, compared with each other.
+     */
+    SINGLE_PAIR,
+    /**
+     * Minimum cost assignment of a small group of children left unmatched.
+     */
+    SMALL_GROUP_ASSIGNMENT,
+    /**
+     * Minimum cost assignment of a large group of children left unmatched.
+     */
+    LARGE_GROUP_ASSIGNMENT
+}
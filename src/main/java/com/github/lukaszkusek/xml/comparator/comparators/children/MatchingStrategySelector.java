@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.ExactMatchFilter.UnmatchedChildren;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.MinimumCostAssignmentCalculator;
+import com.google.common.base.Preconditions;
+
+/**
+ * Chooses how children of the same type left unmatched by subtree hashes and identity keys are assigned
+ * to each other. The size of such group already reflects how many children have identical counterparts,
+ * so groups with mostly identical children are assigned as small ones.
+ * Every choice is recorded in {@link MatchingStatistics}.
+ */
+public class MatchingStrategySelector {
+
+    public static final int DEFAULT_LARGE_GROUP_SIZE = 64;
+
+    private final MinimumCostAssignmentCalculator smallGroupCalculator;
+    private final MinimumCostAssignmentCalculator largeGroupCalculator;
+    private final int largeGroupSize;
+    private final MatchingStatistics matchingStatistics;
+
+    /**
+     * Uses given calculator for groups of all sizes.
+     */
+    public MatchingStrategySelector(MinimumCostAssignmentCalculator minimumCostAssignmentCalculator) {
+        this(minimumCostAssignmentCalculator, minimumCostAssignmentCalculator, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Groups with at least {@code largeGroupSize} unmatched children in one of documents are assigned
+     * using {@code largeGroupCalculator}, smaller ones using {@code smallGroupCalculator}.
+     */
+    public MatchingStrategySelector(
+            MinimumCostAssignmentCalculator smallGroupCalculator,
+            MinimumCostAssignmentCalculator largeGroupCalculator,
+            int largeGroupSize) {
+
+        Preconditions.checkArgument(largeGroupSize > 1, "Large group size has to be greater than 1.");
+
+        this.smallGroupCalculator = smallGroupCalculator;
+        this.largeGroupCalculator = largeGroupCalculator;
+        this.largeGroupSize = largeGroupSize;
+        this.matchingStatistics = new MatchingStatistics();
+    }
+
+    MatchingStrategy selectAssignment(UnmatchedChildren unmatchedChildren) {
+        MatchingStrategy matchingStrategy;
+
+        if (unmatchedChildren.isSinglePair()) {
+            matchingStrategy = MatchingStrategy.SINGLE_PAIR;
+        } else if (isLargeGroup(unmatchedChildren)) {
+            matchingStrategy = MatchingStrategy.LARGE_GROUP_ASSIGNMENT;
+        } else {
+            matchingStrategy = MatchingStrategy.SMALL_GROUP_ASSIGNMENT;
+        }
+
+        record(matchingStrategy);
+        return matchingStrategy;
+    }
+
+    boolean isLargeGroup(UnmatchedChildren unmatchedChildren) {
+        return Math.max(unmatchedChildren.getChildren1().size(), unmatchedChildren.getChildren2().size())
+                >= largeGroupSize;
+    }
+
+    MinimumCostAssignmentCalculator getMinimumCostAssignmentCalculator(MatchingStrategy matchingStrategy) {
+        return matchingStrategy == MatchingStrategy.LARGE_GROUP_ASSIGNMENT
+                ? largeGroupCalculator
+                : smallGroupCalculator;
+    }
+
+    void record(MatchingStrategy matchingStrategy) {
+        matchingStatistics.record(matchingStrategy);
+    }
+
+    public MatchingStatistics getMatchingStatistics() {
+        return matchingStatistics;
+    }
+}
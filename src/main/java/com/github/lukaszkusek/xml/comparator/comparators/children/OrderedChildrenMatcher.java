@@ -0,0 +1,226 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.ExactMatchFilter.UnmatchedChildren;
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Matches children whose order is significant using Myers' O(ND) difference algorithm in linear space,
+ * so long and mostly unchanged lists are matched in near linear time.
+ * <p>
+ * Children equal to each other are kept in place. Children removed from the first document and inserted
+ * to the second one between the same kept children are paired in order as modified children,
+ * the rest of them are missing in the other document.
+ */
+class OrderedChildrenMatcher {
+
+    MatchedChildren match(List<Node> children1, List<Node> children2, BiPredicate<Node, Node> equal) {
+        return new EditScript(children1, children2, equal).find();
+    }
+
+    private static class EditScript {
+
+        private final List<Node> children1;
+        private final List<Node> children2;
+        private final BiPredicate<Node, Node> equal;
+
+        private final List<Map.Entry<Node, Node>> pairs = Lists.newArrayList();
+        private final List<Node> missingInSecondDocument = Lists.newArrayList();
+        private final List<Node> missingInFirstDocument = Lists.newArrayList();
+        private final List<Node> removedChildren = Lists.newArrayList();
+        private final List<Node> insertedChildren = Lists.newArrayList();
+
+        private EditScript(List<Node> children1, List<Node> children2, BiPredicate<Node, Node> equal) {
+            this.children1 = children1;
+            this.children2 = children2;
+            this.equal = equal;
+        }
+
+        private MatchedChildren find() {
+            diff(0, children1.size(), 0, children2.size());
+            keep();
+
+            return new MatchedChildren(
+                    pairs,
+                    missingInSecondDocument,
+                    missingInFirstDocument,
+                    new UnmatchedChildren(Collections.emptyList(), Collections.emptyList()));
+        }
+
+        private boolean areEqual(int index1, int index2) {
+            return equal.test(children1.get(index1), children2.get(index2));
+        }
+
+        private void diff(int start1, int end1, int start2, int end2) {
+            while (start1 < end1 && start2 < end2 && areEqual(start1, start2)) {
+                keep();
+                start1++;
+                start2++;
+            }
+
+            int commonSuffixLength = 0;
+
+            while (start1 < end1 - commonSuffixLength && start2 < end2 - commonSuffixLength
+                    && areEqual(end1 - commonSuffixLength - 1, end2 - commonSuffixLength - 1)) {
+                commonSuffixLength++;
+            }
+
+            end1 -= commonSuffixLength;
+            end2 -= commonSuffixLength;
+
+            if (start1 == end1 || start2 == end2) {
+                removedChildren.addAll(children1.subList(start1, end1));
+                insertedChildren.addAll(children2.subList(start2, end2));
+            } else {
+                bisect(start1, end1, start2, end2);
+            }
+
+            for (int i = 0; i < commonSuffixLength; i++) {
+                keep();
+            }
+        }
+
+        /**
+         * Finds the middle snake of the shortest edit script, searching from both ends at once,
+         * and splits the lists at it.
+         */
+        private void bisect(int start1, int end1, int start2, int end2) {
+            int length1 = end1 - start1;
+            int length2 = end2 - start2;
+            int maxD = (length1 + length2 + 1) / 2;
+            int offset = maxD;
+            int[] forward = new int[2 * maxD + 2];
+            int[] backward = new int[2 * maxD + 2];
+            Arrays.fill(forward, -1);
+            Arrays.fill(backward, -1);
+            forward[offset + 1] = 0;
+            backward[offset + 1] = 0;
+
+            int delta = length1 - length2;
+            boolean odd = delta % 2 != 0;
+            int forwardStart = 0;
+            int forwardEnd = 0;
+            int backwardStart = 0;
+            int backwardEnd = 0;
+
+            for (int d = 0; d < maxD; d++) {
+                for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+                    int x = getFurthestX(forward, offset, d, k);
+                    int y = x - k;
+
+                    while (x < length1 && y < length2 && areEqual(start1 + x, start2 + y)) {
+                        x++;
+                        y++;
+                    }
+
+                    forward[offset + k] = x;
+
+                    if (x > length1) {
+                        forwardEnd += 2;
+                    } else if (y > length2) {
+                        forwardStart += 2;
+                    } else if (odd) {
+                        int backwardX = getX(backward, offset + delta - k);
+
+                        if (backwardX != -1 && x >= length1 - backwardX) {
+                            split(start1, end1, start2, end2, x, y);
+                            return;
+                        }
+                    }
+                }
+
+                for (int k = -d + backwardStart; k <= d - backwardEnd; k += 2) {
+                    int x = getFurthestX(backward, offset, d, k);
+                    int y = x - k;
+
+                    while (x < length1 && y < length2 && areEqual(end1 - x - 1, end2 - y - 1)) {
+                        x++;
+                        y++;
+                    }
+
+                    backward[offset + k] = x;
+
+                    if (x > length1) {
+                        backwardEnd += 2;
+                    } else if (y > length2) {
+                        backwardStart += 2;
+                    } else if (!odd) {
+                        int forwardX = getX(forward, offset + delta - k);
+                        int forwardY = forwardX - (delta - k);
+
+                        if (forwardX != -1 && forwardX >= length1 - x
+                                && forwardX <= length1 && forwardY >= 0 && forwardY <= length2) {
+                            split(start1, end1, start2, end2, forwardX, forwardY);
+                            return;
+                        }
+                    }
+                }
+            }
+
+            removedChildren.addAll(children1.subList(start1, end1));
+            insertedChildren.addAll(children2.subList(start2, end2));
+        }
+
+        private static int getFurthestX(int[] furthestX, int offset, int d, int k) {
+            if (k == -d || (k != d && furthestX[offset + k - 1] < furthestX[offset + k + 1])) {
+                return furthestX[offset + k + 1];
+            }
+
+            return furthestX[offset + k - 1] + 1;
+        }
+
+        private static int getX(int[] furthestX, int index) {
+            return index >= 0 && index < furthestX.length ? furthestX[index] : -1;
+        }
+
+        private void split(int start1, int end1, int start2, int end2, int x, int y) {
+            diff(start1, start1 + x, start2, start2 + y);
+            diff(start1 + x, end1, start2 + y, end2);
+        }
+
+        /**
+         * Keeps a pair of equal children, pairing children removed and inserted since the previous kept pair.
+         */
+        private void keep() {
+            int pairsCount = Math.min(removedChildren.size(), insertedChildren.size());
+
+            for (int i = 0; i < pairsCount; i++) {
+                pairs.add(Maps.immutableEntry(removedChildren.get(i), insertedChildren.get(i)));
+            }
+
+            missingInSecondDocument.addAll(removedChildren.subList(pairsCount, removedChildren.size()));
+            missingInFirstDocument.addAll(insertedChildren.subList(pairsCount, insertedChildren.size()));
+            removedChildren.clear();
+            insertedChildren.clear();
+        }
+    }
+}
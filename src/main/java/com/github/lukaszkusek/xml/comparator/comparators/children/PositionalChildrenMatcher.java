@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.ExactMatchFilter.UnmatchedChildren;
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Pairs children of fixed layout records by their positions, without searching for any alignment.
+ * Children beyond the length of the shorter list are missing in the other document.
+ */
+class PositionalChildrenMatcher {
+
+    MatchedChildren match(List<Node> children1, List<Node> children2) {
+        int pairsCount = Math.min(children1.size(), children2.size());
+        List<Map.Entry<Node, Node>> pairs = Lists.newArrayListWithCapacity(pairsCount);
+
+        for (int i = 0; i < pairsCount; i++) {
+            pairs.add(Maps.immutableEntry(children1.get(i), children2.get(i)));
+        }
+
+        return new MatchedChildren(
+                pairs,
+                children1.subList(pairsCount, children1.size()),
+                children2.subList(pairsCount, children2.size()),
+                new UnmatchedChildren(Collections.emptyList(), Collections.emptyList()));
+    }
+}
@@ -24,50 +24,378 @@
 package com.github.lukaszkusek.xml.comparator.comparators.children;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.github.lukaszkusek.xml.comparator.XMLComparator;
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
 import com.github.lukaszkusek.xml.comparator.comparators.XMLComparatorStep;
+import com.github.lukaszkusek.xml.comparator.comparators.children.ExactMatchFilter.UnmatchedChildren;
 import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostCalculator;
 import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostMatrix;
 import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.HungarianMinimumCostAssignmentCalculator;
 import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.MinimumCostAssignmentCalculator;
-import com.github.lukaszkusek.xml.comparator.diff.DifferenceDetails;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceCode;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceListener;
 import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 public class XMLChildrenIgnoringOrderComparator implements XMLComparatorStep {
 
+    private final XMLComparator xmlComparator;
     private final CostCalculator costCalculator;
-    private final MinimumCostAssignmentCalculator minimumCostAssignmentCalculator = new HungarianMinimumCostAssignmentCalculator();
+    private final ExactMatchFilter exactMatchFilter;
+    private final IdentityKeyFilter identityKeyFilter;
+    private final BlockingKeyFilter blockingKeyFilter;
+    private final OrderedChildrenMatcher orderedChildrenMatcher;
+    private final Set<String> orderedXPaths;
+    private final PositionalChildrenMatcher positionalChildrenMatcher;
+    private final Set<String> positionalXPaths;
+    private final MatchingStrategySelector matchingStrategySelector;
 
     public XMLChildrenIgnoringOrderComparator(XMLComparator xmlComparator) {
-        this.costCalculator = new CostCalculator(xmlComparator);
+        this(xmlComparator, new HungarianMinimumCostAssignmentCalculator());
+    }
+
+    public XMLChildrenIgnoringOrderComparator(
+            XMLComparator xmlComparator, MinimumCostAssignmentCalculator minimumCostAssignmentCalculator) {
+
+        this(xmlComparator, minimumCostAssignmentCalculator, new CostCalculator(xmlComparator));
+    }
+
+    public XMLChildrenIgnoringOrderComparator(
+            XMLComparator xmlComparator,
+            MinimumCostAssignmentCalculator minimumCostAssignmentCalculator,
+            CostCalculator costCalculator) {
+
+        this(
+                xmlComparator,
+                new MatchingStrategySelector(minimumCostAssignmentCalculator),
+                costCalculator,
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                ImmutableSet.of(),
+                ImmutableSet.of());
+    }
+
+    /**
+     * Children with simple XPaths having an {@link IdentityKey} are paired by their keys before minimum cost
+     * assignment, which is then used only for children without a key. Large groups of children with simple XPaths
+     * having a blocking key are assigned in blocks of children with equal keys first. Children with ordered simple
+     * XPaths are matched in order of the documents instead and children with positional simple XPaths are paired
+     * by their positions. Children left unmatched are assigned as chosen by given selector.
+     */
+    public XMLChildrenIgnoringOrderComparator(
+            XMLComparator xmlComparator,
+            MatchingStrategySelector matchingStrategySelector,
+            CostCalculator costCalculator,
+            Map<String, IdentityKey> identityKeys,
+            Map<String, IdentityKey> blockingKeys,
+            Set<String> orderedXPaths,
+            Set<String> positionalXPaths) {
+
+        this.xmlComparator = xmlComparator;
+        this.costCalculator = costCalculator;
+        this.exactMatchFilter = new ExactMatchFilter();
+        this.identityKeyFilter = new IdentityKeyFilter(identityKeys);
+        this.blockingKeyFilter = new BlockingKeyFilter(blockingKeys);
+        this.orderedChildrenMatcher = new OrderedChildrenMatcher();
+        this.orderedXPaths = orderedXPaths;
+        this.positionalChildrenMatcher = new PositionalChildrenMatcher();
+        this.positionalXPaths = positionalXPaths;
+        this.matchingStrategySelector = matchingStrategySelector;
+    }
+
+    @Override
+    public void compare(Node node1, Node node2, ComparisonContext context, DifferenceListener differenceListener) {
+        getChildrenKeysToIterate(node1, node2)
+                .forEach(childrenXPath ->
+                        compareChildrenWithTheSameXpath(node1, node2, childrenXPath, context, differenceListener));
+    }
+
+    @Override
+    public int countDifferences(Node node1, Node node2, ComparisonContext context) {
+        return countDifferences(node1, node2, context, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Each group has at least as many differences as children missing in one of documents, which is known
+     * without comparing any children. Groups are not compared once the differences counted so far
+     * and missing children of the remaining groups reach the bound.
+     */
+    @Override
+    public int countDifferences(Node node1, Node node2, ComparisonContext context, int bound) {
+        Set<String> childrenXPaths = getChildrenKeysToIterate(node1, node2);
+        int missingChildrenCount = 0;
+
+        for (String childrenXPath : childrenXPaths) {
+            missingChildrenCount += getMissingChildrenCount(node1, node2, childrenXPath);
+        }
+
+        int differencesCount = 0;
+
+        for (String childrenXPath : childrenXPaths) {
+            if (differencesCount + missingChildrenCount >= bound) {
+                return bound;
+            }
+
+            missingChildrenCount -= getMissingChildrenCount(node1, node2, childrenXPath);
+            differencesCount += countDifferencesOfChildrenWithTheSameXpath(
+                    node1, node2, childrenXPath, context, bound - differencesCount - missingChildrenCount);
+        }
+
+        return Math.min(differencesCount, bound);
+    }
+
+    private int getMissingChildrenCount(Node node1, Node node2, String childrenXPath) {
+        return Math.abs(node1.getChildren(childrenXPath).size() - node2.getChildren(childrenXPath).size());
     }
 
     @Override
-    public DifferenceDetails compare(Node node1, Node node2) {
+    public boolean isEquivalent(Node node1, Node node2, ComparisonContext context) {
         return getChildrenKeysToIterate(node1, node2).stream()
-                .map(childrenXPath -> compareChildrenWithTheSameXpath(node1, node2, childrenXPath))
-                .reduce(new DifferenceDetails(), DifferenceDetails::putAll);
+                .allMatch(childrenXPath -> areChildrenWithTheSameXpathEquivalent(node1, node2, childrenXPath, context));
     }
 
     private Set<String> getChildrenKeysToIterate(Node node1, Node node2) {
         return Sets.union(node1.getChildrenXPaths(), node2.getChildrenXPaths());
     }
 
-    private DifferenceDetails compareChildrenWithTheSameXpath(Node node1, Node node2, String childrenXPath) {
-        Collection<Node> children1 = node1.getChildren(childrenXPath);
-        Collection<Node> children2 = node2.getChildren(childrenXPath);
+    /**
+     * Costs are bounded by the number of differences which can still be reported. Once the cost of unmatched
+     * children reaches that bound, the pairs assigned first are reported and the comparison is truncated.
+     */
+    private void compareChildrenWithTheSameXpath(
+            Node node1, Node node2, String childrenXPath,
+            ComparisonContext context, DifferenceListener differenceListener) {
+
+        MatchedChildren matchedChildren = assignInBlocks(
+                childrenXPath, filter(node1, node2, childrenXPath, context), context, context.getReportingBound());
+
+        matchedChildren.getPairs()
+                .forEach(pair -> xmlComparator.compare(pair.getKey(), pair.getValue(), context, differenceListener));
+        matchedChildren.getMissingInSecondDocument().forEach(child1 -> differenceListener.onDifference(
+                child1, null, DifferenceCode.MISSING_ELEMENT_IN_SECOND_DOCUMENT));
+        matchedChildren.getMissingInFirstDocument().forEach(child2 -> differenceListener.onDifference(
+                null, child2, DifferenceCode.MISSING_ELEMENT_IN_FIRST_DOCUMENT));
+
+        UnmatchedChildren unmatchedChildren = matchedChildren.getUnmatchedChildren();
+
+        if (unmatchedChildren.isEmpty()) {
+            return;
+        }
+
+        MatchingStrategy matchingStrategy = matchingStrategySelector.selectAssignment(unmatchedChildren);
+
+        if (matchingStrategy == MatchingStrategy.SINGLE_PAIR) {
+            xmlComparator.compare(
+                    unmatchedChildren.getChild1(), unmatchedChildren.getChild2(), context, differenceListener);
+        } else {
+            int bound = context.getReportingBound();
+            CostMatrix childrenComparisonMatrix =
+                    findMinimumCostAssignment(unmatchedChildren, matchingStrategy, context, bound);
+
+            costCalculator.reportDifferences(childrenComparisonMatrix, context, differenceListener);
+
+            if (costCalculator.getTotalCost(childrenComparisonMatrix) >= bound) {
+                differenceListener.onTruncated();
+            }
+        }
+    }
+
+    private int countDifferencesOfChildrenWithTheSameXpath(
+            Node node1, Node node2, String childrenXPath, ComparisonContext context, int bound) {
+
+        MatchedChildren matchedChildren =
+                assignInBlocks(childrenXPath, filter(node1, node2, childrenXPath, context), context, bound);
+        int differencesCount = matchedChildren.getMissingChildrenCount();
+
+        for (Map.Entry<Node, Node> pair : matchedChildren.getPairs()) {
+            if (differencesCount >= bound) {
+                return bound;
+            }
+
+            differencesCount += xmlComparator.countDifferences(
+                    pair.getKey(), pair.getValue(), context, bound - differencesCount);
+        }
+
+        UnmatchedChildren unmatchedChildren = matchedChildren.getUnmatchedChildren();
+
+        if (differencesCount >= bound || unmatchedChildren.isEmpty()) {
+            return Math.min(differencesCount, bound);
+        }
+
+        MatchingStrategy matchingStrategy = matchingStrategySelector.selectAssignment(unmatchedChildren);
+
+        if (matchingStrategy == MatchingStrategy.SINGLE_PAIR) {
+            return differencesCount + xmlComparator.countDifferences(
+                    unmatchedChildren.getChild1(), unmatchedChildren.getChild2(), context, bound - differencesCount);
+        }
+
+        int unmatchedChildrenBound = bound - differencesCount;
+
+        return differencesCount + Math.min(
+                costCalculator.getTotalCost(findMinimumCostAssignment(
+                        unmatchedChildren, matchingStrategy, context, unmatchedChildrenBound)),
+                unmatchedChildrenBound);
+    }
+
+    private boolean areChildrenWithTheSameXpathEquivalent(
+            Node node1, Node node2, String childrenXPath, ComparisonContext context) {
+
+        MatchedChildren matchedChildren = filter(node1, node2, childrenXPath, context);
+        UnmatchedChildren unmatchedChildren = matchedChildren.getUnmatchedChildren();
+
+        return matchedChildren.getMissingChildrenCount() == 0
+                && matchedChildren.getPairs().stream()
+                        .allMatch(pair -> xmlComparator.isEquivalent(pair.getKey(), pair.getValue(), context))
+                && unmatchedChildren.getChildren1().size() == unmatchedChildren.getChildren2().size()
+                && havePerfectZeroCostMatching(unmatchedChildren, context);
+    }
+
+    private MatchedChildren filter(Node node1, Node node2, String childrenXPath, ComparisonContext context) {
+        if (positionalXPaths.contains(childrenXPath)) {
+            matchingStrategySelector.record(MatchingStrategy.POSITIONAL);
+            return positionalChildrenMatcher.match(
+                    getChildrenInDocumentOrder(node1, childrenXPath),
+                    getChildrenInDocumentOrder(node2, childrenXPath));
+        }
+
+        if (orderedXPaths.contains(childrenXPath)) {
+            matchingStrategySelector.record(MatchingStrategy.ORDERED);
+            return orderedChildrenMatcher.match(
+                    getChildrenInDocumentOrder(node1, childrenXPath),
+                    getChildrenInDocumentOrder(node2, childrenXPath),
+                    (child1, child2) -> areEqual(child1, child2, context));
+        }
+
+        UnmatchedChildren unmatchedChildren =
+                exactMatchFilter.filter(node1.getChildren(childrenXPath), node2.getChildren(childrenXPath), context);
+
+        if (unmatchedChildren.isEmpty()) {
+            matchingStrategySelector.record(MatchingStrategy.EXACT_MATCH);
+        } else if (identityKeyFilter.hasIdentityKey(childrenXPath)) {
+            matchingStrategySelector.record(MatchingStrategy.IDENTITY_KEYS);
+        }
+
+        return identityKeyFilter.filter(childrenXPath, unmatchedChildren);
+    }
+
+    /**
+     * Blocks are assigned independently, pairs assigned in them are then compared like children paired by keys.
+     * Children left unassigned in their blocks are assigned across blocks together with unblocked ones.
+     */
+    private MatchedChildren assignInBlocks(
+            String childrenXPath, MatchedChildren matchedChildren, ComparisonContext context, int bound) {
+
+        UnmatchedChildren unmatchedChildren = matchedChildren.getUnmatchedChildren();
+
+        if (!blockingKeyFilter.hasBlockingKey(childrenXPath)
+                || !matchingStrategySelector.isLargeGroup(unmatchedChildren)) {
+            return matchedChildren;
+        }
+
+        matchingStrategySelector.record(MatchingStrategy.BLOCKING);
+
+        BlockingKeyFilter.Blocks blocks = blockingKeyFilter.partition(childrenXPath, unmatchedChildren);
+        List<Map.Entry<Node, Node>> pairs = Lists.newArrayList(matchedChildren.getPairs());
+        List<Node> unassignedChildren1 = Lists.newArrayList(blocks.getUnblockedChildren().getChildren1());
+        List<Node> unassignedChildren2 = Lists.newArrayList(blocks.getUnblockedChildren().getChildren2());
+        List<Collection<Node>> children1Groups = Lists.newArrayList();
+        List<Collection<Node>> children2Groups = Lists.newArrayList();
+        List<MinimumCostAssignmentCalculator> minimumCostAssignmentCalculators = Lists.newArrayList();
+
+        for (UnmatchedChildren block : blocks.getBlocks()) {
+            MatchingStrategy matchingStrategy = matchingStrategySelector.selectAssignment(block);
+
+            if (matchingStrategy == MatchingStrategy.SINGLE_PAIR) {
+                pairs.add(Maps.immutableEntry(block.getChild1(), block.getChild2()));
+            } else {
+                children1Groups.add(block.getChildren1());
+                children2Groups.add(block.getChildren2());
+                minimumCostAssignmentCalculators.add(
+                        matchingStrategySelector.getMinimumCostAssignmentCalculator(matchingStrategy));
+            }
+        }
+
+        for (CostMatrix blockMatrix : costCalculator.findMinimumCostAssignments(
+                children1Groups, children2Groups, minimumCostAssignmentCalculators, context, bound)) {
+
+            blockMatrix.forEachAssignment((child1, child2, cost) -> pairs.add(Maps.immutableEntry(child1, child2)));
+
+            for (int row : blockMatrix.getNotTakenRows()) {
+                unassignedChildren1.add(blockMatrix.getRowKey(row));
+            }
+
+            for (int column : blockMatrix.getNotTakenColumns()) {
+                unassignedChildren2.add(blockMatrix.getColumnKey(column));
+            }
+        }
+
+        return new MatchedChildren(
+                pairs,
+                matchedChildren.getMissingInSecondDocument(),
+                matchedChildren.getMissingInFirstDocument(),
+                new UnmatchedChildren(unassignedChildren1, unassignedChildren2));
+    }
+
+    private List<Node> getChildrenInDocumentOrder(Node node, String childrenXPath) {
+        return ImmutableList.copyOf(node.getChildren(childrenXPath));
+    }
 
-        if (children1.isEmpty() && children2.isEmpty()) {
-            return DifferenceDetails.empty();
+    /**
+     * Subtree hashes are used as fingerprints of ordered children when they are comparable.
+     */
+    private boolean areEqual(Node child1, Node child2, ComparisonContext context) {
+        if (context.hasComparableSubtreeHashes()) {
+            return context.haveEqualSubtreeHashes(child1, child2);
         }
 
-        CostMatrix childrenComparisonMatrix = costCalculator.compareChildren(children1, children2);
-        childrenComparisonMatrix.findMinimumCostAssignment(minimumCostAssignmentCalculator);
+        return xmlComparator.isEquivalent(child1, child2, context);
+    }
+
+    /**
+     * Having no differences is an equivalence relation, so pairing every child with any equivalent one
+     * finds a perfect matching of zero cost whenever it exists and no minimum cost assignment is needed.
+     */
+    private boolean havePerfectZeroCostMatching(UnmatchedChildren unmatchedChildren, ComparisonContext context) {
+        List<Node> unpairedChildren2 = Lists.newLinkedList(unmatchedChildren.getChildren2());
+
+        for (Node child1 : unmatchedChildren.getChildren1()) {
+            Iterator<Node> children2 = unpairedChildren2.iterator();
+
+            while (true) {
+                if (!children2.hasNext()) {
+                    return false;
+                }
+
+                if (xmlComparator.isEquivalent(child1, children2.next(), context)) {
+                    children2.remove();
+                    break;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private CostMatrix findMinimumCostAssignment(
+            UnmatchedChildren unmatchedChildren, MatchingStrategy matchingStrategy,
+            ComparisonContext context, int bound) {
 
-        return childrenComparisonMatrix.getDifferenceDetails();
+        return costCalculator.findMinimumCostAssignment(
+                unmatchedChildren.getChildren1(),
+                unmatchedChildren.getChildren2(),
+                matchingStrategySelector.getMinimumCostAssignmentCalculator(matchingStrategy),
+                context,
+                bound);
     }
 
 }
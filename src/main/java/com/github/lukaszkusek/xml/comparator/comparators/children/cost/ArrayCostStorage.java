@@ -21,25 +21,28 @@
  * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
-package com.github.lukaszkusek.xml.comparator.document;
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
 
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import java.io.IOException;
+class ArrayCostStorage implements CostStorage {
 
-class XMLToXPathsTransformer {
+    private final int[] values;
 
-    private static XSLTransformer TRANSFORMER;
+    ArrayCostStorage(long cellsCount) {
+        this.values = new int[Math.toIntExact(cellsCount)];
+    }
+
+    @Override
+    public int get(long cell) {
+        return values[(int) cell];
+    }
 
-    static {
-        try {
-            TRANSFORMER = new XSLTransformer("XMLToXPaths.xsl");
-        } catch (TransformerConfigurationException | IOException e) {
-            throw new RuntimeException(e);
-        }
+    @Override
+    public void set(long cell, int value) {
+        values[(int) cell] = value;
     }
 
-    static String translate(String xml) throws TransformerException {
-        return TRANSFORMER.translate(xml);
+    @Override
+    public void get(long firstCell, int[] values) {
+        System.arraycopy(this.values, (int) firstCell, values, 0, values.length);
     }
 }
@@ -24,70 +24,313 @@
 package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.github.lukaszkusek.xml.comparator.XMLComparator;
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.AuctionMinimumCostAssignmentCalculator;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.MinimumCostAssignmentCalculator;
 import com.github.lukaszkusek.xml.comparator.diff.DifferenceCode;
-import com.github.lukaszkusek.xml.comparator.diff.DifferenceDetails;
-import com.github.lukaszkusek.xml.comparator.node.INode;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceListener;
 import com.github.lukaszkusek.xml.comparator.node.Node;
-import com.google.common.collect.Lists;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 
 public class CostCalculator {
 
+    public static final long DEFAULT_OUT_OF_CORE_CELLS_COUNT = 1L << 28;
+
+    private static final int MISSING_ELEMENT_COST = 1;
+
     private XMLComparator xmlComparator;
+    private ForkJoinPool forkJoinPool;
+    private int minimumParallelGroupSize;
+    private long outOfCoreCellsCount;
+    private MinimumCostAssignmentCalculator outOfCoreMinimumCostAssignmentCalculator;
 
     public CostCalculator(XMLComparator xmlComparator) {
+        this(xmlComparator, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Costs of children groups having at least {@code minimumParallelGroupSize} children in both documents
+     * together are computed in parallel in given pool.
+     */
+    public CostCalculator(XMLComparator xmlComparator, ForkJoinPool forkJoinPool, int minimumParallelGroupSize) {
+        this(xmlComparator, forkJoinPool, minimumParallelGroupSize, DEFAULT_OUT_OF_CORE_CELLS_COUNT);
+    }
+
+    /**
+     * Costs of children groups having at least {@code outOfCoreCellsCount} pairs are kept in a memory-mapped
+     * temporary file instead of the heap. Such groups are assigned by {@link AuctionMinimumCostAssignmentCalculator},
+     * which reads the costs row by row and keeps in the heap only a few of the cheapest pairs of each row
+     * whose costs were counted exactly.
+     */
+    public CostCalculator(
+            XMLComparator xmlComparator, ForkJoinPool forkJoinPool, int minimumParallelGroupSize,
+            long outOfCoreCellsCount) {
+
+        Preconditions.checkArgument(outOfCoreCellsCount > 0, "Out of core cells count has to be positive.");
+
         this.xmlComparator = xmlComparator;
+        this.forkJoinPool = forkJoinPool;
+        this.minimumParallelGroupSize = minimumParallelGroupSize;
+        this.outOfCoreCellsCount = outOfCoreCellsCount;
+        this.outOfCoreMinimumCostAssignmentCalculator = new AuctionMinimumCostAssignmentCalculator(forkJoinPool);
     }
 
-    public CostMatrix compareChildren(Collection<Node> children1, Collection<Node> children2) {
-        int size1 = children1.size();
-        int size2 = children2.size();
+    /**
+     * Finds minimum cost assignment of children, counting differences of each pair only up to a bound.
+     * <p>
+     * Cells stopped at a bound keep only a lower bound of their cost, so the cost of an assignment found
+     * is not higher than its exact cost. Assigned lower bound cells are counted again without the bound
+     * of their row and the assignment is found again, until all assigned cells are exact, which makes it
+     * the minimum cost assignment, or the total cost reaches the bound of the whole group.
+     * <p>
+     * Filling the matrix stops as soon as the group is known to reach its bound. Rows computed by then are
+     * assigned to their cheapest columns in turn and the remaining rows are left without a pair, so the total cost
+     * reaches the bound too. Nothing is assigned once the comparison is stopped.
+     */
+    public CostMatrix findMinimumCostAssignment(
+            Collection<Node> children1, Collection<Node> children2,
+            MinimumCostAssignmentCalculator minimumCostAssignmentCalculator, ComparisonContext context, int bound) {
 
-        int max = Math.max(size1, size2);
+        RowsWithoutZeroCost rowsWithoutZeroCost = new RowsWithoutZeroCost(bound);
+        CostMatrix childrenComparisonMatrix = createChildrenComparisonMatrix(
+                ImmutableList.copyOf(children1), ImmutableList.copyOf(children2), context, bound,
+                rowsWithoutZeroCost);
 
-        Collection<INode> nullableChildren1 = fillUpWithNullNodes(children1, max - size1);
-        Collection<INode> nullableChildren2 = fillUpWithNullNodes(children2, max - size2);
+        if (context.isStopped()) {
+            return childrenComparisonMatrix;
+        }
+
+        if (rowsWithoutZeroCost.reachBound()) {
+            assignCheapestColumns(childrenComparisonMatrix, rowsWithoutZeroCost.toArray());
+            return childrenComparisonMatrix;
+        }
+
+        MinimumCostAssignmentCalculator calculator = childrenComparisonMatrix.isOutOfCore()
+                ? outOfCoreMinimumCostAssignmentCalculator
+                : minimumCostAssignmentCalculator;
 
-        return createChildrenComparisonMatrix(nullableChildren1, nullableChildren2);
+        do {
+            childrenComparisonMatrix.findMinimumCostAssignment(calculator);
+        } while (getTotalCost(childrenComparisonMatrix) < bound
+                && countAssignedLowerBoundCells(childrenComparisonMatrix, context, bound));
+
+        return childrenComparisonMatrix;
     }
 
-    private Collection<INode> fillUpWithNullNodes(Collection<Node> children, int childrenToAddCount) {
-        Collection<INode> nullableChildren = Lists.newArrayList();
-        nullableChildren.addAll(children);
+    /**
+     * Finds minimum cost assignments of independent groups of children, the i-th group using the i-th calculator.
+     * Groups having at least {@code minimumParallelGroupSize} children together are assigned in parallel.
+     */
+    public List<CostMatrix> findMinimumCostAssignments(
+            List<? extends Collection<Node>> children1Groups, List<? extends Collection<Node>> children2Groups,
+            List<MinimumCostAssignmentCalculator> minimumCostAssignmentCalculators,
+            ComparisonContext context, int bound) {
+
+        IntFunction<CostMatrix> assignment = i -> findMinimumCostAssignment(
+                children1Groups.get(i), children2Groups.get(i),
+                minimumCostAssignmentCalculators.get(i), context, bound);
+        int childrenCount = 0;
 
-        for (int i = 0; i < childrenToAddCount; i++) {
-            nullableChildren.add(new NullNode());
+        for (int i = 0; i < children1Groups.size(); i++) {
+            childrenCount += children1Groups.get(i).size() + children2Groups.get(i).size();
         }
 
-        return nullableChildren;
+        if (forkJoinPool == null || children1Groups.size() < 2 || childrenCount < minimumParallelGroupSize) {
+            return IntStream.range(0, children1Groups.size()).mapToObj(assignment).collect(Collectors.toList());
+        }
+
+        List<ForkJoinTask<CostMatrix>> tasks = IntStream.range(0, children1Groups.size())
+                .mapToObj(i -> ForkJoinTask.adapt(() -> assignment.apply(i)))
+                .collect(Collectors.toList());
+        Runnable invokeAll = () -> ForkJoinTask.invokeAll(tasks);
+
+        if (ForkJoinTask.getPool() == forkJoinPool) {
+            invokeAll.run();
+        } else {
+            forkJoinPool.invoke(ForkJoinTask.adapt(invokeAll));
+        }
+
+        return tasks.stream().map(ForkJoinTask::join).collect(Collectors.toList());
     }
 
     private CostMatrix createChildrenComparisonMatrix(
-            Collection<INode> nullableChildren1, Collection<INode> nullableChildren2) {
+            List<Node> children1, List<Node> children2, ComparisonContext context, int bound,
+            RowsWithoutZeroCost rowsWithoutZeroCost) {
+
+        if (forkJoinPool != null && children1.size() + children2.size() >= minimumParallelGroupSize) {
+            return createChildrenComparisonMatrixInParallel(
+                    children1, children2, context, bound, rowsWithoutZeroCost);
+        }
 
-        CostMatrix childrenComparisonMatrix = CostMatrix.create(nullableChildren1, nullableChildren2);
+        CostMatrix childrenComparisonMatrix = createCostMatrix(children1, children2);
 
-        nullableChildren1.forEach(child1 ->
-                nullableChildren2.forEach(child2 ->
-                        childrenComparisonMatrix.put(child1, child2, compare(child1, child2))));
+        for (int i = 0; i < children1.size() && !rowsWithoutZeroCost.reachBound(); i++) {
+            int bestRowCost = Integer.MAX_VALUE;
+
+            for (int j = 0; j < children2.size(); j++) {
+                if (context.isStopped()) {
+                    return childrenComparisonMatrix;
+                }
+
+                if (childrenComparisonMatrix.isNotAlreadyTaken(i, j)) {
+                    int cellBound = getCellBound(bestRowCost, bound);
+                    int cost = xmlComparator.countDifferences(children1.get(i), children2.get(j), context, cellBound);
+
+                    if (cost < cellBound) {
+                        childrenComparisonMatrix.put(i, j, cost);
+                        bestRowCost = Math.min(bestRowCost, cost);
+                    } else {
+                        childrenComparisonMatrix.putLowerBound(i, j, cellBound);
+                    }
+                }
+            }
+
+            if (bestRowCost > 0) {
+                rowsWithoutZeroCost.add(i);
+            }
+        }
 
         return childrenComparisonMatrix;
     }
 
-    private DifferenceDetails compare(INode node1, INode node2) {
-        if (node1.isNull() && node2.isNull()) {
-            throw new RuntimeException("node1 && node2 cannot be NullNode at the same time.");
+    private CostMatrix createCostMatrix(List<Node> children1, List<Node> children2) {
+        if ((long) children1.size() * children2.size() >= outOfCoreCellsCount) {
+            return CostMatrix.createOutOfCore(children1, children2);
         }
 
-        if (node1.isNull()) {
-            return DifferenceDetails.of(null, (Node) node2, DifferenceCode.MISSING_ELEMENT_IN_FIRST_DOCUMENT);
+        return CostMatrix.create(children1, children2);
+    }
+
+    /**
+     * Cells are computed in ranges, each range bounding its cells by the best cost found in the same row
+     * of that range only. All cells are computed, even the ones which sequential filling would skip after finding
+     * a best match, and then zero cost best matches are taken in order, as by the sequential filling.
+     * Best matches are not taken if the group has reached its bound before all cells were computed.
+     */
+    private CostMatrix createChildrenComparisonMatrixInParallel(
+            List<Node> children1, List<Node> children2, ComparisonContext context, int bound,
+            RowsWithoutZeroCost rowsWithoutZeroCost) {
+
+        CostMatrix childrenComparisonMatrix = createCostMatrix(children1, children2);
+        CostsComputingTask costsComputingTask = new CostsComputingTask(
+                xmlComparator, context, children1, children2, childrenComparisonMatrix, bound,
+                rowsWithoutZeroCost, forkJoinPool.getParallelism());
+
+        if (ForkJoinTask.getPool() == forkJoinPool) {
+            costsComputingTask.invoke();
+        } else {
+            forkJoinPool.invoke(costsComputingTask);
+        }
+
+        if (!rowsWithoutZeroCost.reachBound()) {
+            childrenComparisonMatrix.takeBestMatches();
+        }
+
+        return childrenComparisonMatrix;
+    }
+
+    /**
+     * Rows are assigned in order, each to its cheapest column not taken yet. Given rows have to have
+     * their cells computed for all columns not taken while filling the matrix.
+     */
+    private void assignCheapestColumns(CostMatrix childrenComparisonMatrix, int[] rows) {
+        for (int row : rows) {
+            int cheapestColumn = CostMatrix.NOT_ASSIGNED;
+            int cheapestCost = Integer.MAX_VALUE;
+
+            for (int column = 0; column < childrenComparisonMatrix.columnKeys().size(); column++) {
+                if (childrenComparisonMatrix.isNotAlreadyTaken(row, column)
+                        && childrenComparisonMatrix.getCost(row, column) < cheapestCost) {
+                    cheapestColumn = column;
+                    cheapestCost = childrenComparisonMatrix.getCost(row, column);
+                }
+            }
+
+            if (cheapestColumn != CostMatrix.NOT_ASSIGNED) {
+                childrenComparisonMatrix.setBestMatch(row, cheapestColumn);
+            }
+        }
+    }
+
+    /**
+     * A pair costing more than twice as much as the best pair already found in its row is rarely assigned,
+     * so counting its differences stops there. A pair costing at least the bound of the whole group
+     * would make the group reach its bound when assigned.
+     */
+    static int getCellBound(int bestRowCost, int bound) {
+        if (bestRowCost >= Integer.MAX_VALUE / 2) {
+            return bound;
         }
 
-        if (node2.isNull()) {
-            return DifferenceDetails.of((Node) node1, null, DifferenceCode.MISSING_ELEMENT_IN_SECOND_DOCUMENT);
+        return Math.min(2 * bestRowCost + 1, bound);
+    }
+
+    /**
+     * Counts assigned lower bound cells again, bounded only by the bound of the whole group. A cell reaching it
+     * is still a lower bound, but then the total cost reaches the bound too and the assignment is not needed.
+     */
+    private boolean countAssignedLowerBoundCells(
+            CostMatrix childrenComparisonMatrix, ComparisonContext context, int bound) {
+
+        boolean counted = false;
+
+        for (int row = 0; row < childrenComparisonMatrix.rowKeys().size() && !context.isStopped(); row++) {
+            int column = childrenComparisonMatrix.getAssignedColumn(row);
+
+            if (column != CostMatrix.NOT_ASSIGNED && childrenComparisonMatrix.isLowerBound(row, column)) {
+                childrenComparisonMatrix.putExactCost(
+                        row,
+                        column,
+                        xmlComparator.countDifferences(
+                                childrenComparisonMatrix.getRowKey(row),
+                                childrenComparisonMatrix.getColumnKey(column),
+                                context,
+                                bound));
+                counted = true;
+            }
+        }
+
+        return counted;
+    }
+
+    /**
+     * Children left without a pair after minimum cost assignment are missing in the other document.
+     */
+    public int getTotalCost(CostMatrix childrenComparisonMatrix) {
+        return childrenComparisonMatrix.getAssignedCost()
+                + MISSING_ELEMENT_COST * childrenComparisonMatrix.getNotTakenRows().length
+                + MISSING_ELEMENT_COST * childrenComparisonMatrix.getNotTakenColumns().length;
+    }
+
+    /**
+     * Differences are compared again and reported only for pairs chosen by minimum cost assignment.
+     */
+    public void reportDifferences(
+            CostMatrix childrenComparisonMatrix, ComparisonContext context, DifferenceListener differenceListener) {
+
+        childrenComparisonMatrix.forEachAssignment((child1, child2, cost) -> {
+            if (cost > 0) {
+                xmlComparator.compare(child1, child2, context, differenceListener);
+            }
+        });
+
+        for (int row : childrenComparisonMatrix.getNotTakenRows()) {
+            differenceListener.onDifference(
+                    childrenComparisonMatrix.getRowKey(row), null, DifferenceCode.MISSING_ELEMENT_IN_SECOND_DOCUMENT);
         }
 
-        return xmlComparator.compare((Node) node1, (Node) node2);
+        for (int column : childrenComparisonMatrix.getNotTakenColumns()) {
+            differenceListener.onDifference(
+                    null, childrenComparisonMatrix.getColumnKey(column), DifferenceCode.MISSING_ELEMENT_IN_FIRST_DOCUMENT);
+        }
     }
 }
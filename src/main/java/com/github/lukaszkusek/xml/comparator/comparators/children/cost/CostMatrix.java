@@ -23,122 +23,252 @@
 
 package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
 
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.MinimumCostAssignmentCalculator;
-import com.github.lukaszkusek.xml.comparator.diff.DifferenceDetails;
-import com.github.lukaszkusek.xml.comparator.node.INode;
-import com.google.common.collect.ArrayTable;
-import com.google.common.collect.Table;
-
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.collect.ImmutableList;
 
+/**
+ * Costs of all pairs of children kept in a flat array of differences counts, in the heap or, for very large groups
+ * of children, in a memory-mapped temporary file.
+ * <p>
+ * Matrix does not have to be square. A row and a column are taken as soon as they are assigned to each other,
+ * either as a best match found while filling the matrix or by {@link MinimumCostAssignmentCalculator}.
+ * Rows and columns not taken after the assignment has been found are children without a pair.
+ * Difference details are not stored, they are calculated only for assigned pairs.
+ * <p>
+ * A cell may keep only a lower bound of its cost when counting differences of its pair has been stopped
+ * at a bound. Such cell has to be made exact before its pair can be trusted, after which the assignment
+ * is found again starting from the best matches found while filling the matrix. Lower bounds are stored
+ * as bitwise complements, so they are negative and do not need any additional storage.
+ */
 public class CostMatrix {
 
-    private ArrayTable<INode, INode, CostEntry> costMatrix;
+    public static final int NOT_ASSIGNED = -1;
+
+    private final List<Node> rowKeys;
+    private final List<Node> columnKeys;
+    private final CostStorage costs;
+    private final boolean outOfCore;
+    private final int[] assignedColumns;
+    private final BitSet takenRows;
+    private final BitSet takenColumns;
+
+    private int[] filledAssignedColumns;
+    private BitSet filledTakenRows;
+    private BitSet filledTakenColumns;
+
+    private CostMatrix(List<Node> rowKeys, List<Node> columnKeys, boolean outOfCore) {
+        this.rowKeys = ImmutableList.copyOf(rowKeys);
+        this.columnKeys = ImmutableList.copyOf(columnKeys);
+        this.costs = outOfCore
+                ? new MappedCostStorage(rowKeys.size(), columnKeys.size())
+                : new ArrayCostStorage((long) rowKeys.size() * columnKeys.size());
+        this.outOfCore = outOfCore;
+        this.assignedColumns = new int[rowKeys.size()];
+        this.takenRows = new BitSet(rowKeys.size());
+        this.takenColumns = new BitSet(columnKeys.size());
 
-    private CostMatrix(Collection<INode> children1, Collection<INode> children2) {
-        costMatrix = ArrayTable.create(children1, children2);
+        Arrays.fill(assignedColumns, NOT_ASSIGNED);
     }
 
-    public static CostMatrix create(Collection<INode> children1, Collection<INode> children2) {
-        return new CostMatrix(children1, children2);
+    public static CostMatrix create(List<Node> rowKeys, List<Node> columnKeys) {
+        return new CostMatrix(rowKeys, columnKeys, false);
+    }
+
+    /**
+     * Creates a matrix keeping its costs in a memory-mapped temporary file instead of the heap.
+     */
+    public static CostMatrix createOutOfCore(List<Node> rowKeys, List<Node> columnKeys) {
+        return new CostMatrix(rowKeys, columnKeys, true);
+    }
+
+    public boolean isOutOfCore() {
+        return outOfCore;
     }
 
     public void findMinimumCostAssignment(MinimumCostAssignmentCalculator minimumCostAssignmentCalculator) {
-        merge(minimumCostAssignmentCalculator.getMinimumCostAssignment(this));
+        if (filledAssignedColumns == null) {
+            filledAssignedColumns = assignedColumns.clone();
+            filledTakenRows = (BitSet) takenRows.clone();
+            filledTakenColumns = (BitSet) takenColumns.clone();
+        } else {
+            System.arraycopy(filledAssignedColumns, 0, assignedColumns, 0, assignedColumns.length);
+            takenRows.clear();
+            takenRows.or(filledTakenRows);
+            takenColumns.clear();
+            takenColumns.or(filledTakenColumns);
+        }
+
+        minimumCostAssignmentCalculator.getMinimumCostAssignment(this);
     }
 
-    public CostMatrix merge(CostMatrix costMatrix) {
-        costMatrix.getCellSet()
-                .forEach(cell -> this.costMatrix.put(cell.getRowKey(), cell.getColumnKey(), cell.getValue()));
+    /**
+     * Creates a matrix of given rows and columns of this one, with the same costs and nothing assigned.
+     */
+    public CostMatrix subMatrix(int[] rows, int[] columns) {
+        CostMatrix subMatrix = new CostMatrix(
+                Arrays.stream(rows).mapToObj(rowKeys::get).collect(Collectors.toList()),
+                Arrays.stream(columns).mapToObj(columnKeys::get).collect(Collectors.toList()),
+                false);
 
-        return this;
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                subMatrix.costs.set(subMatrix.index(i, j), costs.get(index(rows[i], columns[j])));
+            }
+        }
+
+        return subMatrix;
     }
 
-    public void put(INode child1, INode child2, DifferenceDetails differenceDetails) {
-        if (isNotAlreadyTaken(child1, child2)) {
-            doPut(child1, child2, differenceDetails);
+    public void put(int row, int column, int cost) {
+        if (isNotAlreadyTaken(row, column)) {
+            costs.set(index(row, column), cost);
+
+            if (cost == 0) {
+                setBestMatch(row, column);
+            }
         }
     }
 
-    private boolean isNotAlreadyTaken(INode child1, INode child2) {
-        CostEntry costEntry = costMatrix.get(child1, child2);
+    /**
+     * Puts a cost known to be not lower than given bound.
+     */
+    public void putLowerBound(int row, int column, int lowerBound) {
+        if (isNotAlreadyTaken(row, column)) {
+            costs.set(index(row, column), ~lowerBound);
+        }
+    }
 
-        return costEntry == null || costEntry.isNotTaken();
+    /**
+     * Puts a cost computed concurrently with other cells, without taking zero cost cells as best matches.
+     */
+    void putComputed(int row, int column, int cost, boolean lowerBound) {
+        costs.set(index(row, column), lowerBound ? ~cost : cost);
     }
 
-    private void doPut(INode child1, INode child2, DifferenceDetails differenceDetails) {
-        if (differenceDetails.isBestMatch()) {
-            setBestMatch(child1, child2, differenceDetails);
-        } else {
-            costMatrix.put(child1, child2, CostEntry.of(differenceDetails));
+    /**
+     * Takes zero cost cells as best matches in the order in which {@link #put} would take them.
+     */
+    void takeBestMatches() {
+        for (int row = 0; row < rowKeys.size(); row++) {
+            for (int column = 0; column < columnKeys.size() && !takenRows.get(row); column++) {
+                if (costs.get(index(row, column)) == 0 && !takenColumns.get(column)) {
+                    setBestMatch(row, column);
+                }
+            }
         }
     }
 
-    public void setBestMatch(INode child1, INode child2) {
-        setBestMatch(child1, child2, costMatrix.get(child1, child2).getDifferenceDetails());
+    public boolean isLowerBound(int row, int column) {
+        return costs.get(index(row, column)) < 0;
+    }
+
+    public void putExactCost(int row, int column, int cost) {
+        costs.set(index(row, column), cost);
     }
 
-    private void setBestMatch(INode child1, INode child2, DifferenceDetails differenceDetails) {
-        takeRow(child1);
-        takeColumn(child2);
-        assign(child1, child2, differenceDetails);
+    public boolean isNotAlreadyTaken(int row, int column) {
+        return !takenRows.get(row) && !takenColumns.get(column);
     }
 
-    private void takeColumn(INode child2) {
-        costMatrix.rowKeyList().forEach(child1ForChild2 -> take(child1ForChild2, child2));
+    public void setBestMatch(int row, int column) {
+        takenRows.set(row);
+        takenColumns.set(column);
+        assignedColumns[row] = column;
     }
 
-    private void takeRow(INode child1) {
-        costMatrix.columnKeyList().forEach(child2ForChild1 -> take(child1, child2ForChild1));
+    public int getCost(int row, int column) {
+        int cost = costs.get(index(row, column));
+
+        return cost < 0 ? ~cost : cost;
     }
 
-    private void take(INode child1, INode child2) {
-        costMatrix.put(child1, child2, CostEntry.taken());
+    /**
+     * Reads costs of all columns of a row at once, marking columns whose costs are only lower bounds.
+     */
+    public void getRowCosts(int row, int[] rowCosts, BitSet lowerBounds) {
+        costs.get(index(row, 0), rowCosts);
+        lowerBounds.clear();
+
+        for (int column = 0; column < rowCosts.length; column++) {
+            if (rowCosts[column] < 0) {
+                rowCosts[column] = ~rowCosts[column];
+                lowerBounds.set(column);
+            }
+        }
     }
 
-    private void assign(INode child1, INode child2, DifferenceDetails differenceDetails) {
-        costMatrix.put(child1, child2, CostEntry.assign(differenceDetails));
+    private long index(int row, int column) {
+        return (long) row * columnKeys.size() + column;
     }
 
-    public DifferenceDetails getDifferenceDetails() {
-        return costMatrix.values().stream()
-                .filter(CostEntry::isAssigned)
-                .map(CostEntry::getDifferenceDetails)
-                .reduce(new DifferenceDetails(), DifferenceDetails::putAll);
+    public int[] getNotTakenRows() {
+        return getNotTaken(takenRows, rowKeys.size());
     }
 
-    public DifferenceDetails getDifferenceDetails(INode rowKey, INode columnKey) {
-        return Optional.ofNullable(costMatrix.get(rowKey, columnKey))
-                .map(CostEntry::getDifferenceDetails)
-                .orElse(null);
+    public int[] getNotTakenColumns() {
+        return getNotTaken(takenColumns, columnKeys.size());
     }
 
-    public DifferenceDetails getDifferenceDetails(int i, int j) {
-        return getDifferenceDetails(rowKeys().get(i), columnKeys().get(j));
+    private static int[] getNotTaken(BitSet taken, int size) {
+        int[] notTaken = new int[size - taken.cardinality()];
+
+        for (int i = 0, index = taken.nextClearBit(0); index < size; i++, index = taken.nextClearBit(index + 1)) {
+            notTaken[i] = index;
+        }
+
+        return notTaken;
     }
 
-    public INode getColumnKey(int index) {
-        return columnKeys().get(index);
+    public int getAssignedColumn(int row) {
+        return assignedColumns[row];
     }
 
-    public INode getRowKey(int index) {
-        return rowKeys().get(index);
+    public int getAssignedCost() {
+        int assignedCost = 0;
+
+        for (int row = 0; row < assignedColumns.length; row++) {
+            if (assignedColumns[row] != NOT_ASSIGNED) {
+                assignedCost += getCost(row, assignedColumns[row]);
+            }
+        }
+
+        return assignedCost;
     }
 
-    public List<INode> columnKeys() {
-        return costMatrix.columnKeyList();
+    public void forEachAssignment(AssignmentConsumer assignmentConsumer) {
+        for (int row = 0; row < assignedColumns.length; row++) {
+            int column = assignedColumns[row];
+
+            if (column != NOT_ASSIGNED) {
+                assignmentConsumer.accept(getRowKey(row), getColumnKey(column), getCost(row, column));
+            }
+        }
     }
 
-    public List<INode> rowKeys() {
-        return costMatrix.rowKeyList();
+    public Node getColumnKey(int index) {
+        return columnKeys.get(index);
     }
 
-    // TODO consider if this exposes to much
-    public Set<Table.Cell<INode, INode, CostEntry>> getCellSet() {
-        return costMatrix.cellSet();
+    public Node getRowKey(int index) {
+        return rowKeys.get(index);
+    }
+
+    public List<Node> columnKeys() {
+        return columnKeys;
+    }
+
+    public List<Node> rowKeys() {
+        return rowKeys;
+    }
+
+    public interface AssignmentConsumer {
+
+        void accept(Node rowKey, Node columnKey, int cost);
     }
 }
@@ -21,23 +21,19 @@
  * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
-package com.github.lukaszkusek.xml.comparator.document;
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
 
-import java.io.IOException;
-import java.io.StringReader;
-
-import com.google.common.io.InputSupplier;
-
-class StringInputSupplier implements InputSupplier<StringReader> {
+/**
+ * Values of all cells of a {@link CostMatrix}, indexed row by row. Cells never set are 0.
+ */
+interface CostStorage {
 
-    private StringReader stringReader;
+    int get(long cell);
 
-    StringInputSupplier(StringReader stringReader) {
-        this.stringReader = stringReader;
-    }
+    void set(long cell, int value);
 
-    @Override
-    public StringReader getInput() throws IOException {
-        return stringReader;
-    }
+    /**
+     * Reads consecutive cells of a single row, starting at given one, into the whole of given array.
+     */
+    void get(long firstCell, int[] values);
 }
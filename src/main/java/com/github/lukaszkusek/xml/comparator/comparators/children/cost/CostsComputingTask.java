@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import com.github.lukaszkusek.xml.comparator.XMLComparator;
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
+import com.github.lukaszkusek.xml.comparator.node.Node;
+
+/**
+ * Counts differences of all pairs of children as fork-join tasks, each task computing a range of cells
+ * of a cost matrix in row-major order. Cells stopped at their bound are marked as lower bounds.
+ * Tasks stop once the comparison is stopped or the rows computed entirely by single tasks make the group
+ * reach its bound.
+ * Comparisons of nested children groups started by a task are forked in the same pool,
+ * so idle workers steal them instead of waiting.
+ */
+class CostsComputingTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final XMLComparator xmlComparator;
+    private final ComparisonContext context;
+    private final List<Node> children1;
+    private final List<Node> children2;
+    private final CostMatrix costMatrix;
+    private final int bound;
+    private final RowsWithoutZeroCost rowsWithoutZeroCost;
+    private final long from;
+    private final long to;
+    private final long cellsPerTask;
+
+    CostsComputingTask(
+            XMLComparator xmlComparator, ComparisonContext context, List<Node> children1, List<Node> children2,
+            CostMatrix costMatrix, int bound, RowsWithoutZeroCost rowsWithoutZeroCost, int parallelism) {
+
+        this(xmlComparator, context, children1, children2, costMatrix, bound, rowsWithoutZeroCost,
+                0, getCellsCount(children1, children2),
+                Math.max(1, getCellsCount(children1, children2) / (parallelism * 4)));
+    }
+
+    private CostsComputingTask(
+            XMLComparator xmlComparator, ComparisonContext context, List<Node> children1, List<Node> children2,
+            CostMatrix costMatrix, int bound, RowsWithoutZeroCost rowsWithoutZeroCost,
+            long from, long to, long cellsPerTask) {
+
+        this.xmlComparator = xmlComparator;
+        this.context = context;
+        this.children1 = children1;
+        this.children2 = children2;
+        this.costMatrix = costMatrix;
+        this.bound = bound;
+        this.rowsWithoutZeroCost = rowsWithoutZeroCost;
+        this.from = from;
+        this.to = to;
+        this.cellsPerTask = cellsPerTask;
+    }
+
+    private static long getCellsCount(List<Node> children1, List<Node> children2) {
+        return (long) children1.size() * children2.size();
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= cellsPerTask) {
+            computeCosts();
+        } else {
+            long middle = (from + to) >>> 1;
+
+            invokeAll(createSubtask(from, middle), createSubtask(middle, to));
+        }
+    }
+
+    private CostsComputingTask createSubtask(long from, long to) {
+        return new CostsComputingTask(
+                xmlComparator, context, children1, children2, costMatrix, bound, rowsWithoutZeroCost,
+                from, to, cellsPerTask);
+    }
+
+    private void computeCosts() {
+        int columns = children2.size();
+        int row = -1;
+        int bestRowCost = Integer.MAX_VALUE;
+
+        for (long cell = from; cell < to; cell++) {
+            if (context.isStopped() || rowsWithoutZeroCost.reachBound()) {
+                return;
+            }
+
+            if (cell / columns != row) {
+                row = (int) (cell / columns);
+                bestRowCost = Integer.MAX_VALUE;
+            }
+
+            int column = (int) (cell % columns);
+            int cellBound = CostCalculator.getCellBound(bestRowCost, bound);
+            int cost = xmlComparator.countDifferences(children1.get(row), children2.get(column), context, cellBound);
+
+            if (cost < cellBound) {
+                costMatrix.putComputed(row, column, cost, false);
+                bestRowCost = Math.min(bestRowCost, cost);
+            } else {
+                costMatrix.putComputed(row, column, cellBound, true);
+            }
+
+            if (column == columns - 1 && (long) row * columns >= from && bestRowCost > 0) {
+                rowsWithoutZeroCost.add(row);
+            }
+        }
+    }
+}
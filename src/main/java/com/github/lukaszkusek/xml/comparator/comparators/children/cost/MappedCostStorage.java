@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Cells kept out of the heap in a temporary file mapped to memory in blocks of whole rows, so the matrix
+ * is limited by disk space instead of the heap and only blocks being used are loaded by the operating system.
+ * The file is deleted as soon as it is mapped and its space is freed once the blocks are garbage collected.
+ */
+class MappedCostStorage implements CostStorage {
+
+    private static final int CELL_SIZE = Integer.BYTES;
+    private static final int MAXIMUM_BLOCK_SIZE = 1 << 30;
+
+    private final MappedByteBuffer[] blocks;
+    private final long cellsPerBlock;
+
+    MappedCostStorage(int rowsCount, int columnsCount) {
+        Preconditions.checkArgument(
+                (long) columnsCount * CELL_SIZE <= MAXIMUM_BLOCK_SIZE, "Row does not fit in a mapped block.");
+
+        int rowsPerBlock = MAXIMUM_BLOCK_SIZE / Math.max(1, columnsCount * CELL_SIZE);
+        long cellsCount = (long) rowsCount * columnsCount;
+
+        this.cellsPerBlock = (long) rowsPerBlock * columnsCount;
+        this.blocks = new MappedByteBuffer[Math.max(1, (rowsCount + rowsPerBlock - 1) / rowsPerBlock)];
+
+        try (FileChannel fileChannel = FileChannel.open(
+                Files.createTempFile("xml-comparator-costs", ".tmp"),
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+
+            for (int block = 0; block < blocks.length; block++) {
+                long blockStart = block * cellsPerBlock;
+
+                blocks[block] = fileChannel.map(
+                        FileChannel.MapMode.READ_WRITE,
+                        blockStart * CELL_SIZE,
+                        Math.min(cellsPerBlock, cellsCount - blockStart) * CELL_SIZE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map temporary file of cost matrix.", e);
+        }
+    }
+
+    @Override
+    public int get(long cell) {
+        return blocks[(int) (cell / cellsPerBlock)].getInt((int) (cell % cellsPerBlock) * CELL_SIZE);
+    }
+
+    @Override
+    public void set(long cell, int value) {
+        blocks[(int) (cell / cellsPerBlock)].putInt((int) (cell % cellsPerBlock) * CELL_SIZE, value);
+    }
+
+    /**
+     * Rows never cross blocks, so the cells are read from a single block in bulk.
+     */
+    @Override
+    public void get(long firstCell, int[] values) {
+        IntBuffer block = blocks[(int) (firstCell / cellsPerBlock)].asIntBuffer();
+        block.position((int) (firstCell % cellsPerBlock));
+        block.get(values);
+    }
+}
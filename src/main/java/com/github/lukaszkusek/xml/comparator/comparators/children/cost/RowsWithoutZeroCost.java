@@ -0,0 +1,56 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
+
+import java.util.BitSet;
+
+/**
+ * Rows of a cost matrix having all their cells computed and none of them costing zero. Each of them adds
+ * at least one difference to any assignment, either as a pair or as a child missing in the other document,
+ * so once there are as many of them as the bound of the group, the group reaches its bound whatever
+ * the remaining cells cost and they do not have to be computed.
+ */
+class RowsWithoutZeroCost {
+
+    private final int bound;
+    private final BitSet rows = new BitSet();
+
+    private volatile int count;
+
+    RowsWithoutZeroCost(int bound) {
+        this.bound = bound;
+    }
+
+    synchronized void add(int row) {
+        rows.set(row);
+        count++;
+    }
+
+    boolean reachBound() {
+        return count >= bound;
+    }
+
+    synchronized int[] toArray() {
+        return rows.stream().toArray();
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Bertsekas' auction algorithm with epsilon scaling for the linear assignment problem given by candidate cells
+ * only, running in time proportional to the number of candidates rather than the size of the whole matrix.
+ * <p>
+ * The problem is made square and always feasible by adding a slack column for every row, which the row can take
+ * at a cost higher than any assignment of real cells, and a slack row for every column, which can take its column
+ * or the slack column of any row having that column as a candidate. As an assignment has at most as many real cells
+ * as the smaller of the numbers of rows and columns, the slack cost grows with that number only. Rows ending on their
+ * slack columns are not assigned, so the assignment found has the maximum number of candidate cells and the minimum
+ * cost among them.
+ * <p>
+ * Costs are scaled by the number of rows, so the final phase with epsilon 1 finds an optimal assignment.
+ * Bids of all unassigned rows are computed at once from the same prices, in parallel if a pool is given,
+ * and each column is then taken by its highest bidder.
+ * <p>
+ * D. P. Bertsekas, "The auction algorithm: A distributed relaxation method for the assignment problem",
+ * Annals of Operations Research 14, 105-123 (1988).
+ */
+class AuctionAlgorithm {
+
+    private static final int NOT_ASSIGNED = -1;
+    private static final int EPSILON_SCALING_FACTOR = 4;
+    private static final int MINIMUM_PARALLEL_BIDDERS_COUNT = 256;
+
+    private final ForkJoinPool forkJoinPool;
+    private final int realRowsCount;
+    private final int realColumnsCount;
+    private final int size;
+
+    private final int[] rowStarts;
+    private final int[] columns;
+    private final long[] costs;
+    private final long maximumCost;
+
+    private final long[] prices;
+    private final int[] columnsAssignedToRows;
+    private final int[] rowsAssignedToColumns;
+
+    private final int[] bidColumns;
+    private final long[] bidPrices;
+    private final int[] bestBidders;
+    private final long[] bestBids;
+
+    AuctionAlgorithm(SparseCostArray sparseCostArray, ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+        this.realRowsCount = sparseCostArray.getRowsCount();
+        this.realColumnsCount = sparseCostArray.getColumnsCount();
+        this.size = realRowsCount + realColumnsCount;
+
+        long scale = size + 1;
+        long slackCost = Math.multiplyExact(
+                getMaximumCost(sparseCostArray) + 1, (long) Math.min(realRowsCount, realColumnsCount) + 1);
+
+        this.maximumCost = Math.multiplyExact(slackCost, scale);
+        checkPricesFitInLong();
+
+        this.rowStarts = new int[size + 1];
+        this.columns = new int[getCellsCount(sparseCostArray, size)];
+        this.costs = new long[columns.length];
+        fillCells(sparseCostArray, scale, slackCost * scale);
+
+        this.prices = new long[size];
+        this.columnsAssignedToRows = new int[size];
+        this.rowsAssignedToColumns = new int[size];
+        this.bidColumns = new int[size];
+        this.bidPrices = new long[size];
+        this.bestBidders = new int[size];
+        this.bestBids = new long[size];
+    }
+
+    /**
+     * Prices, and values of columns computed from them, stay within (2 * size + 2) times the maximum scaled cost,
+     * as a price rises only while its column is worth more to some row than its slack column. Bids of rows
+     * with a single candidate column raise its price by the maximum cost, which is covered by that bound too.
+     *
+     * @throws ArithmeticException if such prices would not fit in a long
+     */
+    private void checkPricesFitInLong() {
+        Math.multiplyExact(maximumCost, 2L * size + 2);
+    }
+
+    /**
+     * Every real cell is kept twice, once in its row and once as a slack cell of the slack row of its column,
+     * and every row has one more cell taking a slack column.
+     */
+    private static int getCellsCount(SparseCostArray sparseCostArray, int size) {
+        long cellsCount = 2L * sparseCostArray.getCellsCount() + size;
+        Preconditions.checkArgument(
+                cellsCount <= SparseCostArray.MAXIMUM_CELLS_COUNT, "Too many candidate cells: %s.", cellsCount);
+
+        return (int) cellsCount;
+    }
+
+    private static long getMaximumCost(SparseCostArray sparseCostArray) {
+        long maximumCost = 0;
+
+        for (int cell = 0; cell < sparseCostArray.getCellsCount(); cell++) {
+            maximumCost = Math.max(maximumCost, sparseCostArray.getCost(cell));
+        }
+
+        return maximumCost;
+    }
+
+    /**
+     * Rows of the square problem are real rows followed by slack rows of real columns,
+     * columns are real columns followed by slack columns of real rows.
+     */
+    private void fillCells(SparseCostArray realCells, long scale, long scaledSlackCost) {
+        int cell = 0;
+
+        for (int row = 0; row < realRowsCount; row++) {
+            rowStarts[row] = cell;
+
+            for (int realCell = realCells.getRowStart(row); realCell < realCells.getRowEnd(row); realCell++) {
+                columns[cell] = realCells.getColumn(realCell);
+                costs[cell++] = realCells.getCost(realCell) * scale;
+            }
+
+            columns[cell] = realColumnsCount + row;
+            costs[cell++] = scaledSlackCost;
+        }
+
+        int[] candidateRowsCounts = new int[realColumnsCount + 1];
+
+        for (int realCell = 0; realCell < realCells.getCellsCount(); realCell++) {
+            candidateRowsCounts[realCells.getColumn(realCell) + 1]++;
+        }
+
+        for (int column = 0; column < realColumnsCount; column++) {
+            rowStarts[realRowsCount + column] = cell;
+            columns[cell++] = column;
+            cell += candidateRowsCounts[column + 1];
+        }
+
+        rowStarts[size] = cell;
+
+        int[] nextCells = new int[realColumnsCount];
+
+        for (int column = 0; column < realColumnsCount; column++) {
+            nextCells[column] = rowStarts[realRowsCount + column] + 1;
+        }
+
+        for (int row = 0; row < realRowsCount; row++) {
+            for (int realCell = realCells.getRowStart(row); realCell < realCells.getRowEnd(row); realCell++) {
+                columns[nextCells[realCells.getColumn(realCell)]++] = realColumnsCount + row;
+            }
+        }
+    }
+
+    /**
+     * @return column assigned to each row or -1 if the row has no candidate cell left for it
+     */
+    int[] execute() {
+        int[] assignment = new int[realRowsCount];
+        Arrays.fill(assignment, NOT_ASSIGNED);
+
+        if (realRowsCount == 0 || realColumnsCount == 0) {
+            return assignment;
+        }
+
+        for (long epsilon = Math.max(1, maximumCost / EPSILON_SCALING_FACTOR); ; epsilon /= EPSILON_SCALING_FACTOR) {
+            runAuction(Math.max(1, epsilon));
+
+            if (epsilon <= 1) {
+                break;
+            }
+        }
+
+        for (int row = 0; row < realRowsCount; row++) {
+            if (columnsAssignedToRows[row] < realColumnsCount) {
+                assignment[row] = columnsAssignedToRows[row];
+            }
+        }
+
+        return assignment;
+    }
+
+    private void runAuction(long epsilon) {
+        Arrays.fill(columnsAssignedToRows, NOT_ASSIGNED);
+        Arrays.fill(rowsAssignedToColumns, NOT_ASSIGNED);
+        Arrays.fill(bestBidders, NOT_ASSIGNED);
+
+        int[] bidders = new int[size];
+        int[] nextBidders = new int[size];
+        int biddersCount = size;
+
+        for (int row = 0; row < size; row++) {
+            bidders[row] = row;
+        }
+
+        while (biddersCount > 0) {
+            computeBids(bidders, biddersCount, epsilon);
+            biddersCount = assignBestBidders(bidders, biddersCount, nextBidders);
+
+            int[] swapped = bidders;
+            bidders = nextBidders;
+            nextBidders = swapped;
+        }
+    }
+
+    private void computeBids(int[] bidders, int biddersCount, long epsilon) {
+        if (forkJoinPool != null && biddersCount >= MINIMUM_PARALLEL_BIDDERS_COUNT) {
+            forkJoinPool.invoke(new BiddingTask(
+                    bidders, 0, biddersCount, epsilon,
+                    Math.max(1, biddersCount / (forkJoinPool.getParallelism() * 4))));
+        } else {
+            for (int bidder = 0; bidder < biddersCount; bidder++) {
+                computeBid(bidders, bidder, epsilon);
+            }
+        }
+    }
+
+    /**
+     * Row bids for its best column the price making it as good as its second best column, raised by epsilon.
+     */
+    private void computeBid(int[] bidders, int bidder, long epsilon) {
+        int row = bidders[bidder];
+        long bestValue = Long.MIN_VALUE;
+        long secondBestValue = Long.MIN_VALUE;
+        int bestColumn = NOT_ASSIGNED;
+
+        for (int cell = rowStarts[row]; cell < rowStarts[row + 1]; cell++) {
+            long value = -costs[cell] - prices[columns[cell]];
+
+            if (value > bestValue) {
+                secondBestValue = bestValue;
+                bestValue = value;
+                bestColumn = columns[cell];
+            } else if (value > secondBestValue) {
+                secondBestValue = value;
+            }
+        }
+
+        long increment = secondBestValue == Long.MIN_VALUE ? maximumCost : bestValue - secondBestValue;
+
+        bidColumns[bidder] = bestColumn;
+        bidPrices[bidder] = prices[bestColumn] + increment + epsilon;
+    }
+
+    private int assignBestBidders(int[] bidders, int biddersCount, int[] nextBidders) {
+        for (int bidder = 0; bidder < biddersCount; bidder++) {
+            int column = bidColumns[bidder];
+
+            if (bestBidders[column] == NOT_ASSIGNED || bidPrices[bidder] > bestBids[column]) {
+                bestBidders[column] = bidders[bidder];
+                bestBids[column] = bidPrices[bidder];
+            }
+        }
+
+        int nextBiddersCount = 0;
+
+        for (int bidder = 0; bidder < biddersCount; bidder++) {
+            int row = bidders[bidder];
+            int column = bidColumns[bidder];
+
+            if (bestBidders[column] != row) {
+                nextBidders[nextBiddersCount++] = row;
+                continue;
+            }
+
+            int previousRow = rowsAssignedToColumns[column];
+
+            if (previousRow != NOT_ASSIGNED) {
+                columnsAssignedToRows[previousRow] = NOT_ASSIGNED;
+                nextBidders[nextBiddersCount++] = previousRow;
+            }
+
+            rowsAssignedToColumns[column] = row;
+            columnsAssignedToRows[row] = column;
+            prices[column] = bestBids[column];
+        }
+
+        for (int bidder = 0; bidder < biddersCount; bidder++) {
+            bestBidders[bidColumns[bidder]] = NOT_ASSIGNED;
+        }
+
+        return nextBiddersCount;
+    }
+
+    private class BiddingTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] bidders;
+        private final int from;
+        private final int to;
+        private final long epsilon;
+        private final int leafSize;
+
+        private BiddingTask(int[] bidders, int from, int to, long epsilon, int leafSize) {
+            this.bidders = bidders;
+            this.from = from;
+            this.to = to;
+            this.epsilon = epsilon;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int bidder = from; bidder < to; bidder++) {
+                    computeBid(bidders, bidder, epsilon);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+
+                invokeAll(
+                        new BiddingTask(bidders, from, middle, epsilon, leafSize),
+                        new BiddingTask(bidders, middle, to, epsilon, leafSize));
+            }
+        }
+    }
+}
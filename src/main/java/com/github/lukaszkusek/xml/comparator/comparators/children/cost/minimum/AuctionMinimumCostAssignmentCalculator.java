@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostMatrix;
+import com.google.common.base.Preconditions;
+
+/**
+ * Assignment for large collections of elements with few similar pairs. Only cells with exact costs are considered
+ * candidates, which after pruning of pairs whose cost bounds exceed the best known assignment are usually few,
+ * so the auction over them runs in time proportional to their number. At most {@code candidatesPerRow}
+ * of the cheapest of them are kept for each row, so memory used is proportional to the number of rows
+ * even if many pairs turn out to be similar, at the price of the assignment being optimal only among those
+ * candidates. Costs are read one row at a time, so out-of-core matrices are never copied into the heap.
+ * Rows left without a candidate are then assigned in turn to their cheapest free columns by the lower bounds
+ * of their costs, which are refined like any other assigned lower bound.
+ * <p>
+ * If costs of the candidates are too high for prices of the auction to fit in a long, candidates are assigned
+ * greedily from the cheapest one instead.
+ *
+ * @see AuctionAlgorithm
+ */
+public class AuctionMinimumCostAssignmentCalculator implements MinimumCostAssignmentCalculator {
+
+    public static final int DEFAULT_CANDIDATES_PER_ROW = 32;
+
+    private final ForkJoinPool forkJoinPool;
+    private final int candidatesPerRow;
+
+    public AuctionMinimumCostAssignmentCalculator() {
+        this(null);
+    }
+
+    /**
+     * @param forkJoinPool pool computing bids of many rows in parallel, sequential bidding if {@code null}
+     */
+    public AuctionMinimumCostAssignmentCalculator(ForkJoinPool forkJoinPool) {
+        this(forkJoinPool, DEFAULT_CANDIDATES_PER_ROW);
+    }
+
+    /**
+     * @param forkJoinPool pool computing bids of many rows in parallel, sequential bidding if {@code null}
+     * @param candidatesPerRow maximum number of the cheapest exact cells of a row taking part in the auction
+     */
+    public AuctionMinimumCostAssignmentCalculator(ForkJoinPool forkJoinPool, int candidatesPerRow) {
+        Preconditions.checkArgument(candidatesPerRow > 0, "Maximum number of candidates per row has to be positive.");
+
+        this.forkJoinPool = forkJoinPool;
+        this.candidatesPerRow = candidatesPerRow;
+    }
+
+    @Override
+    public CostMatrix getMinimumCostAssignment(CostMatrix inputComparisonMatrix) {
+        CostMatrixToCostArrayConverter costMatrixToCostArrayConverter =
+                new CostMatrixToCostArrayConverter(inputComparisonMatrix);
+
+        if (!costMatrixToCostArrayConverter.isEmpty()) {
+            costMatrixToCostArrayConverter.applyMinimumCostAssignment(
+                    findAssignment(costMatrixToCostArrayConverter.getSparseCostArray(candidatesPerRow)));
+            assignRemainingInTurn(inputComparisonMatrix);
+        }
+
+        return inputComparisonMatrix;
+    }
+
+    private int[] findAssignment(SparseCostArray sparseCostArray) {
+        AuctionAlgorithm auctionAlgorithm;
+
+        try {
+            auctionAlgorithm = new AuctionAlgorithm(sparseCostArray, forkJoinPool);
+        } catch (ArithmeticException e) {
+            return assignCheapestCandidatesFirst(sparseCostArray);
+        }
+
+        return auctionAlgorithm.execute();
+    }
+
+    /**
+     * Assigns candidates from the cheapest one, skipping those whose row or column has been already assigned.
+     * Used when prices of the auction over given candidates would not fit in a long.
+     */
+    private static int[] assignCheapestCandidatesFirst(SparseCostArray sparseCostArray) {
+        int[] cellRows = new int[sparseCostArray.getCellsCount()];
+        long[] cellsByCost = new long[cellRows.length];
+
+        for (int row = 0; row < sparseCostArray.getRowsCount(); row++) {
+            for (int cell = sparseCostArray.getRowStart(row); cell < sparseCostArray.getRowEnd(row); cell++) {
+                cellRows[cell] = row;
+                cellsByCost[cell] = (long) sparseCostArray.getCost(cell) << Integer.SIZE | cell;
+            }
+        }
+
+        Arrays.sort(cellsByCost);
+
+        int[] assignment = new int[sparseCostArray.getRowsCount()];
+        BitSet assignedColumns = new BitSet(sparseCostArray.getColumnsCount());
+        Arrays.fill(assignment, -1);
+
+        for (long cellByCost : cellsByCost) {
+            int cell = (int) cellByCost;
+            int column = sparseCostArray.getColumn(cell);
+
+            if (assignment[cellRows[cell]] < 0 && !assignedColumns.get(column)) {
+                assignment[cellRows[cell]] = column;
+                assignedColumns.set(column);
+            }
+        }
+
+        return assignment;
+    }
+
+    private static void assignRemainingInTurn(CostMatrix inputComparisonMatrix) {
+        CostMatrixToCostArrayConverter costMatrixToCostArrayConverter =
+                new CostMatrixToCostArrayConverter(inputComparisonMatrix);
+
+        if (!costMatrixToCostArrayConverter.isEmpty()) {
+            costMatrixToCostArrayConverter.applyMinimumCostAssignment(
+                    costMatrixToCostArrayConverter.getCheapestColumnsInTurn());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostMatrix;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+
+/**
+ * Pairs with cost above a threshold are treated as implausible, which usually splits the group into many small
+ * connected components of rows and columns joined by plausible pairs. Each component is assigned separately
+ * by given calculator, and rows and columns left unassigned in their components are assigned to each other
+ * afterwards. Given an exact calculator, the assignment found is the minimum cost one whenever there is a minimum
+ * cost assignment without implausible pairs.
+ */
+public class ConnectedComponentsMinimumCostAssignmentCalculator implements MinimumCostAssignmentCalculator {
+
+    private final MinimumCostAssignmentCalculator minimumCostAssignmentCalculator;
+    private final int costThreshold;
+    private final ForkJoinPool forkJoinPool;
+
+    public ConnectedComponentsMinimumCostAssignmentCalculator(
+            MinimumCostAssignmentCalculator minimumCostAssignmentCalculator, int costThreshold) {
+
+        this(minimumCostAssignmentCalculator, costThreshold, null);
+    }
+
+    /**
+     * @param costThreshold  the highest cost of a plausible pair
+     * @param forkJoinPool   pool assigning components in parallel, sequential assignment if {@code null}
+     */
+    public ConnectedComponentsMinimumCostAssignmentCalculator(
+            MinimumCostAssignmentCalculator minimumCostAssignmentCalculator,
+            int costThreshold,
+            ForkJoinPool forkJoinPool) {
+
+        Preconditions.checkArgument(costThreshold >= 0, "Cost threshold cannot be negative.");
+
+        this.minimumCostAssignmentCalculator = minimumCostAssignmentCalculator;
+        this.costThreshold = costThreshold;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    @Override
+    public CostMatrix getMinimumCostAssignment(CostMatrix inputComparisonMatrix) {
+        int[] rows = inputComparisonMatrix.getNotTakenRows();
+        int[] columns = inputComparisonMatrix.getNotTakenColumns();
+        List<Component> components = findComponents(inputComparisonMatrix, rows, columns);
+
+        if (components.size() == 1 && components.get(0).isOf(rows, columns)) {
+            return minimumCostAssignmentCalculator.getMinimumCostAssignment(inputComparisonMatrix);
+        }
+
+        List<CostMatrix> componentMatrices = assignComponents(inputComparisonMatrix, components);
+
+        for (int i = 0; i < components.size(); i++) {
+            components.get(i).applyAssignment(inputComparisonMatrix, componentMatrices.get(i));
+        }
+
+        return minimumCostAssignmentCalculator.getMinimumCostAssignment(inputComparisonMatrix);
+    }
+
+    private List<CostMatrix> assignComponents(CostMatrix inputComparisonMatrix, List<Component> components) {
+        List<ForkJoinTask<CostMatrix>> assignments = components.stream()
+                .map(component -> ForkJoinTask.adapt(() -> minimumCostAssignmentCalculator.getMinimumCostAssignment(
+                        inputComparisonMatrix.subMatrix(component.rows, component.columns))))
+                .collect(Collectors.toList());
+
+        if (forkJoinPool == null || assignments.size() < 2) {
+            assignments.forEach(ForkJoinTask::invoke);
+        } else if (ForkJoinTask.getPool() == forkJoinPool) {
+            ForkJoinTask.invokeAll(assignments);
+        } else {
+            forkJoinPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(assignments)));
+        }
+
+        return assignments.stream().map(ForkJoinTask::join).collect(Collectors.toList());
+    }
+
+    /**
+     * Joins rows and columns of plausible pairs using union-find, rows are numbered first and columns after them.
+     * Components without rows or without columns have nothing to assign and are left out.
+     */
+    private List<Component> findComponents(CostMatrix inputComparisonMatrix, int[] rows, int[] columns) {
+        int[] parents = new int[rows.length + columns.length];
+
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                if (inputComparisonMatrix.getCost(rows[i], columns[j]) <= costThreshold) {
+                    parents[find(parents, i)] = find(parents, rows.length + j);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> componentRows = Maps.newLinkedHashMap();
+        Map<Integer, List<Integer>> componentColumns = Maps.newHashMap();
+
+        for (int i = 0; i < rows.length; i++) {
+            componentRows.computeIfAbsent(find(parents, i), root -> Lists.newArrayList()).add(rows[i]);
+        }
+
+        for (int j = 0; j < columns.length; j++) {
+            componentColumns.computeIfAbsent(find(parents, rows.length + j), root -> Lists.newArrayList())
+                    .add(columns[j]);
+        }
+
+        List<Component> components = Lists.newArrayList();
+
+        componentRows.forEach((root, rowsOfComponent) -> {
+            List<Integer> columnsOfComponent = componentColumns.get(root);
+
+            if (columnsOfComponent != null) {
+                components.add(new Component(Ints.toArray(rowsOfComponent), Ints.toArray(columnsOfComponent)));
+            }
+        });
+
+        return components;
+    }
+
+    private static int find(int[] parents, int element) {
+        while (parents[element] != element) {
+            parents[element] = parents[parents[element]];
+            element = parents[element];
+        }
+
+        return element;
+    }
+
+    private static class Component {
+
+        private final int[] rows;
+        private final int[] columns;
+
+        private Component(int[] rows, int[] columns) {
+            this.rows = rows;
+            this.columns = columns;
+        }
+
+        private boolean isOf(int[] allRows, int[] allColumns) {
+            return rows.length == allRows.length && columns.length == allColumns.length;
+        }
+
+        private void applyAssignment(CostMatrix inputComparisonMatrix, CostMatrix componentMatrix) {
+            for (int i = 0; i < rows.length; i++) {
+                int column = componentMatrix.getAssignedColumn(i);
+
+                if (column != CostMatrix.NOT_ASSIGNED) {
+                    inputComparisonMatrix.setBestMatch(rows[i], columns[column]);
+                }
+            }
+        }
+    }
+}
@@ -23,40 +23,127 @@
 
 package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
 import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostMatrix;
 
+/**
+ * Converts not yet taken rows and columns of {@link CostMatrix} into a cost array
+ * and applies assignment found for that array back to the matrix.
+ */
 class CostMatrixToCostArrayConverter {
 
     private CostMatrix childrenComparisonMatrix;
+    private int[] rows;
+    private int[] columns;
 
     CostMatrixToCostArrayConverter(CostMatrix childrenComparisonMatrix) {
         this.childrenComparisonMatrix = childrenComparisonMatrix;
+        this.rows = childrenComparisonMatrix.getNotTakenRows();
+        this.columns = childrenComparisonMatrix.getNotTakenColumns();
+    }
+
+    boolean isEmpty() {
+        return rows.length == 0 || columns.length == 0;
     }
 
     void applyMinimumCostAssignment(int[] minimumCostMatching) {
         for (int i = 0; i < minimumCostMatching.length; i++) {
-            childrenComparisonMatrix.setBestMatch(
-                    childrenComparisonMatrix.getRowKey(i),
-                    childrenComparisonMatrix.getColumnKey(minimumCostMatching[i]));
+            if (minimumCostMatching[i] >= 0) {
+                childrenComparisonMatrix.setBestMatch(rows[i], columns[minimumCostMatching[i]]);
+            }
         }
     }
 
-    CostMatrix getCostMatrix() {
-        return childrenComparisonMatrix;
+    double[][] getCostArray() {
+        double[][] costArray = new double[rows.length][columns.length];
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                costArray[i][j] = childrenComparisonMatrix.getCost(rows[i], columns[j]);
+            }
+        }
+
+        return costArray;
     }
 
-    double[][] getCostArray() {
-        int rowKeysSize = childrenComparisonMatrix.rowKeys().size();
-        int columnKeysSize = childrenComparisonMatrix.columnKeys().size();
+    int[][] getIntCostArray() {
+        int[][] costArray = new int[rows.length][columns.length];
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < columns.length; j++) {
+                costArray[i][j] = childrenComparisonMatrix.getCost(rows[i], columns[j]);
+            }
+        }
+
+        return costArray;
+    }
 
-        double[][] costMatrix = new double[rowKeysSize][columnKeysSize];
+    /**
+     * Only cells with exact costs are candidates, cells with lower bounds of their costs are left out.
+     * Of those, at most given number of the cheapest ones of each row are kept. The matrix is read one row
+     * at a time, so an out-of-core matrix is never copied into the heap as a whole.
+     */
+    SparseCostArray getSparseCostArray(int candidatesPerRow) {
+        int rowCandidatesCount = Math.min(candidatesPerRow, columns.length);
+        SparseCostArray sparseCostArray =
+                new SparseCostArray(rows.length, columns.length, (long) rows.length * rowCandidatesCount);
 
-        for (int i = 0; i < rowKeysSize; i++) {
-            for (int j = 0; j < columnKeysSize; j++) {
-                costMatrix[i][j] = childrenComparisonMatrix.getDifferenceDetails(i, j).getCount();
+        int[] rowCosts = new int[childrenComparisonMatrix.columnKeys().size()];
+        BitSet lowerBounds = new BitSet(rowCosts.length);
+        LongMaxHeap cheapestCells = new LongMaxHeap(Math.max(1, rowCandidatesCount));
+
+        for (int row : rows) {
+            childrenComparisonMatrix.getRowCosts(row, rowCosts, lowerBounds);
+
+            for (int j = 0; j < columns.length && rowCandidatesCount > 0; j++) {
+                if (!lowerBounds.get(columns[j])) {
+                    long cell = (long) rowCosts[columns[j]] << Integer.SIZE | j;
+
+                    if (!cheapestCells.isFull()) {
+                        cheapestCells.add(cell);
+                    } else if (cell < cheapestCells.peek()) {
+                        cheapestCells.replaceTop(cell);
+                    }
+                }
+            }
+
+            for (long cell : cheapestCells.toSortedArray()) {
+                sparseCostArray.add((int) cell, (int) (cell >>> Integer.SIZE));
             }
+
+            cheapestCells.clear();
+            sparseCostArray.nextRow();
+        }
+
+        return sparseCostArray;
+    }
+
+    /**
+     * Assigns rows one by one, each to its cheapest column not assigned yet, whether its cost is exact or only
+     * a lower bound. The matrix is read one row at a time, so an out-of-core matrix is never copied into the heap.
+     */
+    int[] getCheapestColumnsInTurn() {
+        int[] assignment = new int[rows.length];
+        Arrays.fill(assignment, -1);
+
+        int[] rowCosts = new int[childrenComparisonMatrix.columnKeys().size()];
+        BitSet lowerBounds = new BitSet(rowCosts.length);
+        BitSet assignedColumns = new BitSet(columns.length);
+
+        for (int i = 0; i < Math.min(rows.length, columns.length); i++) {
+            childrenComparisonMatrix.getRowCosts(rows[i], rowCosts, lowerBounds);
+
+            for (int j = assignedColumns.nextClearBit(0); j < columns.length; j = assignedColumns.nextClearBit(j + 1)) {
+                if (assignment[i] < 0 || rowCosts[columns[j]] < rowCosts[columns[assignment[i]]]) {
+                    assignment[i] = j;
+                }
+            }
+
+            assignedColumns.set(assignment[i]);
         }
 
-        return costMatrix;
+        return assignment;
     }
 }
@@ -0,0 +1,278 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import java.util.Arrays;
+
+/**
+ * Greedy approximation of the linear assignment problem with non-negative integer costs.
+ * <p>
+ * The cheapest cell of rows and columns not yet assigned is assigned repeatedly. Rows are kept in a priority queue
+ * by the cost of their cheapest free column, which is looked up in columns of the row selected by cost only when
+ * that column has been assigned to another row, so the assignment takes O(n^2 log n) time. Afterwards a bounded
+ * number of local improvement passes moves rows to cheaper free columns and swaps columns of pairs of rows
+ * whenever it lowers the total cost.
+ * <p>
+ * A rectangular matrix is transposed if needed, so that there are not more rows than columns and every row
+ * is assigned. The sum of minimal costs of all rows (and of all columns of a square matrix) is a lower bound
+ * of the minimum cost, so the cost of the assignment found exceeds the minimum by at most
+ * {@link #getCost()} - {@link #getLowerBound()}.
+ */
+class GreedyAssignmentAlgorithm {
+
+    private static final int NOT_ASSIGNED = -1;
+    private static final int FIRST_SELECTED_COLUMNS_COUNT = 16;
+
+    private final boolean transposed;
+    private final int[][] costs;
+    private final int rowsCount;
+    private final int columnsCount;
+    private final int improvementPasses;
+
+    private final int[] columnsAssignedToRows;
+    private final int[] rowsAssignedToColumns;
+
+    GreedyAssignmentAlgorithm(int[][] costs, int improvementPasses) {
+        int originalColumnsCount = costs.length == 0 ? 0 : costs[0].length;
+
+        for (int[] row : costs) {
+            if (row.length != originalColumnsCount) {
+                throw new IllegalArgumentException("All rows of cost matrix have to have the same length.");
+            }
+        }
+
+        this.transposed = costs.length > originalColumnsCount;
+        this.costs = transposed ? transpose(costs, originalColumnsCount) : costs;
+        this.rowsCount = transposed ? originalColumnsCount : costs.length;
+        this.columnsCount = transposed ? costs.length : originalColumnsCount;
+        this.improvementPasses = improvementPasses;
+
+        this.columnsAssignedToRows = new int[rowsCount];
+        this.rowsAssignedToColumns = new int[columnsCount];
+    }
+
+    private static int[][] transpose(int[][] costs, int columnsCount) {
+        int[][] transposed = new int[columnsCount][costs.length];
+
+        for (int i = 0; i < costs.length; i++) {
+            for (int j = 0; j < columnsCount; j++) {
+                transposed[j][i] = costs[i][j];
+            }
+        }
+
+        return transposed;
+    }
+
+    /**
+     * @return column assigned to each row of the original matrix or -1 if the row is not assigned
+     */
+    int[] execute() {
+        Arrays.fill(columnsAssignedToRows, NOT_ASSIGNED);
+        Arrays.fill(rowsAssignedToColumns, NOT_ASSIGNED);
+
+        assignGreedily();
+
+        for (int pass = 0; pass < improvementPasses; pass++) {
+            if (!improve()) {
+                break;
+            }
+        }
+
+        return transposed ? rowsAssignedToColumns.clone() : columnsAssignedToRows.clone();
+    }
+
+    private void assignGreedily() {
+        int[] cheapestColumns = new int[rowsCount];
+        FreeColumnsByCost[] freeColumnsByCost = new FreeColumnsByCost[rowsCount];
+        LongMaxHeap rowsByCheapestCost = new LongMaxHeap(rowsCount);
+
+        for (int row = 0; row < rowsCount; row++) {
+            cheapestColumns[row] = findCheapestColumn(row);
+            rowsByCheapestCost.add(~toQueueEntry(costs[row][cheapestColumns[row]], row));
+        }
+
+        while (!rowsByCheapestCost.isEmpty()) {
+            int row = (int) ~rowsByCheapestCost.poll();
+            int column = cheapestColumns[row];
+
+            if (rowsAssignedToColumns[column] == NOT_ASSIGNED) {
+                assign(row, column);
+            } else {
+                if (freeColumnsByCost[row] == null) {
+                    freeColumnsByCost[row] = new FreeColumnsByCost(row, column);
+                }
+
+                cheapestColumns[row] = freeColumnsByCost[row].getCheapestFreeColumn();
+                rowsByCheapestCost.add(~toQueueEntry(costs[row][cheapestColumns[row]], row));
+            }
+        }
+    }
+
+    private int findCheapestColumn(int row) {
+        int cheapestColumn = 0;
+
+        for (int column = 1; column < columnsCount; column++) {
+            if (costs[row][column] < costs[row][cheapestColumn]) {
+                cheapestColumn = column;
+            }
+        }
+
+        return cheapestColumn;
+    }
+
+    /**
+     * Costs are non-negative, so entries ordered by cost and then by row or column fit in a single long.
+     * Rows are queued as complements of their entries, so that the cheapest one is on top of a max-heap.
+     */
+    private static long toQueueEntry(int cost, int rowOrColumn) {
+        return ((long) cost << Integer.SIZE) | rowOrColumn;
+    }
+
+    private boolean improve() {
+        boolean improved = false;
+
+        for (int row = 0; row < rowsCount; row++) {
+            for (int column = 0; column < columnsCount; column++) {
+                int assignedColumn = columnsAssignedToRows[row];
+                int otherRow = rowsAssignedToColumns[column];
+
+                if (otherRow == NOT_ASSIGNED) {
+                    if (costs[row][column] < costs[row][assignedColumn]) {
+                        rowsAssignedToColumns[assignedColumn] = NOT_ASSIGNED;
+                        assign(row, column);
+                        improved = true;
+                    }
+                } else if (costs[row][column] + costs[otherRow][assignedColumn]
+                        < costs[row][assignedColumn] + costs[otherRow][column]) {
+                    assign(row, column);
+                    assign(otherRow, assignedColumn);
+                    improved = true;
+                }
+            }
+        }
+
+        return improved;
+    }
+
+    private void assign(int row, int column) {
+        columnsAssignedToRows[row] = column;
+        rowsAssignedToColumns[column] = row;
+    }
+
+    long getCost() {
+        long cost = 0;
+
+        for (int row = 0; row < rowsCount; row++) {
+            if (columnsAssignedToRows[row] != NOT_ASSIGNED) {
+                cost += costs[row][columnsAssignedToRows[row]];
+            }
+        }
+
+        return cost;
+    }
+
+    long getLowerBound() {
+        long rowsLowerBound = 0;
+
+        for (int row = 0; row < rowsCount; row++) {
+            rowsLowerBound += Arrays.stream(costs[row]).min().orElse(0);
+        }
+
+        if (rowsCount != columnsCount) {
+            return rowsLowerBound;
+        }
+
+        long columnsLowerBound = 0;
+
+        for (int column = 0; column < columnsCount; column++) {
+            int minimalCost = Integer.MAX_VALUE;
+
+            for (int row = 0; row < rowsCount; row++) {
+                minimalCost = Math.min(minimalCost, costs[row][column]);
+            }
+
+            columnsLowerBound += minimalCost;
+        }
+
+        return Math.max(rowsLowerBound, columnsLowerBound);
+    }
+
+    /**
+     * Columns of a row by cost, selected only after the cheapest column of the row has been assigned to another row.
+     * Most rows need only a few more columns, so the cheapest ones are selected first. A row losing all of them
+     * sorts all remaining columns, so it takes O(n log n) time at most. Columns are not freed until all rows
+     * are assigned, so columns already passed are never needed again.
+     */
+    private class FreeColumnsByCost {
+
+        private final int row;
+        private long[] columnsEntries;
+        private int position;
+
+        private FreeColumnsByCost(int row, int cheapestColumn) {
+            this.row = row;
+            this.columnsEntries = new long[]{toQueueEntry(costs[row][cheapestColumn], cheapestColumn)};
+            this.position = 1;
+        }
+
+        private int getCheapestFreeColumn() {
+            while (true) {
+                for (; position < columnsEntries.length; position++) {
+                    int column = (int) columnsEntries[position];
+
+                    if (rowsAssignedToColumns[column] == NOT_ASSIGNED) {
+                        return column;
+                    }
+                }
+
+                selectNextColumns(columnsEntries.length == 1 ? FIRST_SELECTED_COLUMNS_COUNT : columnsCount);
+            }
+        }
+
+        /**
+         * Selects given number of cheapest free columns following the last selected one using a bounded max-heap.
+         * All free columns follow it, as all columns before it have been assigned.
+         */
+        private void selectNextColumns(int count) {
+            long lastColumnEntry = columnsEntries[columnsEntries.length - 1];
+            LongMaxHeap cheapestColumnsEntries = new LongMaxHeap(Math.min(count, columnsCount));
+
+            for (int column = 0; column < columnsCount; column++) {
+                long columnEntry = toQueueEntry(costs[row][column], column);
+
+                if (rowsAssignedToColumns[column] != NOT_ASSIGNED || columnEntry <= lastColumnEntry) {
+                    continue;
+                }
+
+                if (!cheapestColumnsEntries.isFull()) {
+                    cheapestColumnsEntries.add(columnEntry);
+                } else if (columnEntry < cheapestColumnsEntries.peek()) {
+                    cheapestColumnsEntries.replaceTop(columnEntry);
+                }
+            }
+
+            columnsEntries = cheapestColumnsEntries.toSortedArray();
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostMatrix;
+import com.google.common.base.Preconditions;
+
+/**
+ * Approximate assignment for very large collections of elements, where finding the exact minimum cost
+ * is not worth its time. Assignments found are at most {@link #getMaximumOptimalityGap()} differences
+ * more expensive than the minimum ones.
+ *
+ * @see GreedyAssignmentAlgorithm
+ */
+public class GreedyMinimumCostAssignmentCalculator implements MinimumCostAssignmentCalculator {
+
+    public static final int DEFAULT_IMPROVEMENT_PASSES = 1;
+
+    private final int improvementPasses;
+    private final LongAdder totalOptimalityGap = new LongAdder();
+    private final LongAccumulator maximumOptimalityGap = new LongAccumulator(Math::max, 0);
+
+    public GreedyMinimumCostAssignmentCalculator() {
+        this(DEFAULT_IMPROVEMENT_PASSES);
+    }
+
+    /**
+     * @param improvementPasses maximal number of local improvement passes over the greedy assignment,
+     *                          each of them taking time proportional to the size of the cost matrix
+     */
+    public GreedyMinimumCostAssignmentCalculator(int improvementPasses) {
+        Preconditions.checkArgument(improvementPasses >= 0, "Number of improvement passes cannot be negative.");
+
+        this.improvementPasses = improvementPasses;
+    }
+
+    @Override
+    public CostMatrix getMinimumCostAssignment(CostMatrix inputComparisonMatrix) {
+        CostMatrixToCostArrayConverter costMatrixToCostArrayConverter =
+                new CostMatrixToCostArrayConverter(inputComparisonMatrix);
+
+        if (!costMatrixToCostArrayConverter.isEmpty()) {
+            GreedyAssignmentAlgorithm greedyAssignmentAlgorithm =
+                    new GreedyAssignmentAlgorithm(costMatrixToCostArrayConverter.getIntCostArray(), improvementPasses);
+
+            costMatrixToCostArrayConverter.applyMinimumCostAssignment(greedyAssignmentAlgorithm.execute());
+
+            if (hasOnlyExactCostsAssigned(inputComparisonMatrix)) {
+                recordOptimalityGap(greedyAssignmentAlgorithm.getCost() - greedyAssignmentAlgorithm.getLowerBound());
+            }
+        }
+
+        return inputComparisonMatrix;
+    }
+
+    /**
+     * An assignment with lower bound cells is found again after they have been made exact,
+     * so the gap is recorded only once per collection, for the final assignment.
+     * Its cost is then exact and lower bound cells not assigned only lower the lower bound of the minimum.
+     */
+    private static boolean hasOnlyExactCostsAssigned(CostMatrix inputComparisonMatrix) {
+        for (int row = 0; row < inputComparisonMatrix.rowKeys().size(); row++) {
+            int column = inputComparisonMatrix.getAssignedColumn(row);
+
+            if (column != CostMatrix.NOT_ASSIGNED && inputComparisonMatrix.isLowerBound(row, column)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void recordOptimalityGap(long optimalityGap) {
+        totalOptimalityGap.add(optimalityGap);
+        maximumOptimalityGap.accumulate(optimalityGap);
+    }
+
+    /**
+     * Upper bound of the sum of differences between costs of all final assignments found by this calculator
+     * and their minimum costs. Collections whose comparison stopped at a bound before their assignment was final
+     * are not counted.
+     */
+    public long getTotalOptimalityGap() {
+        return totalOptimalityGap.sum();
+    }
+
+    /**
+     * Upper bound of the difference between the cost of any assignment found by this calculator
+     * and its minimum cost.
+     */
+    public long getMaximumOptimalityGap() {
+        return maximumOptimalityGap.get();
+    }
+}
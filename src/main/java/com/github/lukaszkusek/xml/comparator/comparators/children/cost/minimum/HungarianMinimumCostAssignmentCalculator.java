@@ -28,25 +28,17 @@ import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostMatri
 
 public class HungarianMinimumCostAssignmentCalculator implements MinimumCostAssignmentCalculator {
 
-    private CostMatrixFilter costMatrixFilter = new CostMatrixFilter();
-
     @Override
     public CostMatrix getMinimumCostAssignment(CostMatrix inputComparisonMatrix) {
-        // TODO create copy of CostMatrix
-        return costMatrixFilter.filterAlreadyAssigned(inputComparisonMatrix)
-                .map(filtered -> inputComparisonMatrix.merge(findMinimumCostAssignment(filtered)))
-                .orElse(inputComparisonMatrix);
-    }
-
-    private CostMatrix findMinimumCostAssignment(CostMatrix filtered) {
         CostMatrixToCostArrayConverter costMatrixToCostArrayConverter =
-                new CostMatrixToCostArrayConverter(filtered);
-
-        int[] minimumCostAssignment = findMinimumCostAssignment(costMatrixToCostArrayConverter.getCostArray());
+                new CostMatrixToCostArrayConverter(inputComparisonMatrix);
 
-        costMatrixToCostArrayConverter.applyMinimumCostAssignment(minimumCostAssignment);
+        if (!costMatrixToCostArrayConverter.isEmpty()) {
+            costMatrixToCostArrayConverter.applyMinimumCostAssignment(
+                    findMinimumCostAssignment(costMatrixToCostArrayConverter.getCostArray()));
+        }
 
-        return costMatrixToCostArrayConverter.getCostMatrix();
+        return inputComparisonMatrix;
     }
 
     private int[] findMinimumCostAssignment(double[][] costArray) {
@@ -0,0 +1,353 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import java.util.Arrays;
+
+/**
+ * Jonker-Volgenant shortest augmenting path algorithm for the linear assignment problem with integer costs.
+ * <p>
+ * For a square matrix initial assignment and column prices are found by column reduction, reduction transfer
+ * and two rounds of augmenting row reduction. Rows still unassigned after that are assigned along shortest
+ * augmenting paths found with Dijkstra-like search over reduced costs.
+ * <p>
+ * A rectangular matrix is transposed if needed, so that there are not more rows than columns.
+ * Initialization is skipped for it and every row is assigned along a shortest augmenting path starting
+ * from zero column prices, which leaves the prices of unassigned columns maximal and the assignment optimal.
+ * <p>
+ * R. Jonker, A. Volgenant, "A Shortest Augmenting Path Algorithm for Dense and Sparse Linear Assignment Problems",
+ * Computing 38, 325-340 (1987).
+ */
+class JonkerVolgenantAlgorithm {
+
+    private static final int NOT_ASSIGNED = -1;
+    private static final int AUGMENTING_ROW_REDUCTION_ROUNDS = 2;
+
+    private final boolean transposed;
+    private final int[][] costs;
+    private final int rowsCount;
+    private final int columnsCount;
+
+    private final int[] columnsAssignedToRows;
+    private final int[] rowsAssignedToColumns;
+    private final long[] columnPrices;
+
+    private int[] freeRows;
+    private int freeRowsCount;
+
+    JonkerVolgenantAlgorithm(int[][] costs) {
+        int originalColumnsCount = costs.length == 0 ? 0 : costs[0].length;
+
+        for (int[] row : costs) {
+            if (row.length != originalColumnsCount) {
+                throw new IllegalArgumentException("All rows of cost matrix have to have the same length.");
+            }
+        }
+
+        this.transposed = costs.length > originalColumnsCount;
+        this.costs = transposed ? transpose(costs, originalColumnsCount) : costs;
+        this.rowsCount = transposed ? originalColumnsCount : costs.length;
+        this.columnsCount = transposed ? costs.length : originalColumnsCount;
+
+        this.columnsAssignedToRows = new int[rowsCount];
+        this.rowsAssignedToColumns = new int[columnsCount];
+        this.columnPrices = new long[columnsCount];
+    }
+
+    private static int[][] transpose(int[][] costs, int columnsCount) {
+        int[][] transposed = new int[columnsCount][costs.length];
+
+        for (int i = 0; i < costs.length; i++) {
+            for (int j = 0; j < columnsCount; j++) {
+                transposed[j][i] = costs[i][j];
+            }
+        }
+
+        return transposed;
+    }
+
+    /**
+     * @return column assigned to each row or -1 if there are more rows than columns and the row is not assigned
+     */
+    int[] execute() {
+        Arrays.fill(columnsAssignedToRows, NOT_ASSIGNED);
+        Arrays.fill(rowsAssignedToColumns, NOT_ASSIGNED);
+
+        if (rowsCount > 0) {
+            if (rowsCount == columnsCount) {
+                initialize();
+            } else {
+                freeAllRows();
+            }
+
+            ShortestAugmentingPath shortestAugmentingPath = new ShortestAugmentingPath();
+
+            for (int i = 0; i < freeRowsCount; i++) {
+                shortestAugmentingPath.augment(freeRows[i]);
+            }
+        }
+
+        return transposed ? rowsAssignedToColumns : columnsAssignedToRows;
+    }
+
+    private void initialize() {
+        int[] assignedColumnsCount = reduceColumns();
+        transferReduction(assignedColumnsCount);
+
+        for (int round = 0; round < AUGMENTING_ROW_REDUCTION_ROUNDS; round++) {
+            augmentingRowReduction();
+        }
+    }
+
+    private void freeAllRows() {
+        freeRows = new int[rowsCount];
+        freeRowsCount = rowsCount;
+
+        for (int row = 0; row < rowsCount; row++) {
+            freeRows[row] = row;
+        }
+    }
+
+    private long reducedCost(int row, int column) {
+        return costs[row][column] - columnPrices[column];
+    }
+
+    private int[] reduceColumns() {
+        int[] assignedColumnsCount = new int[rowsCount];
+
+        for (int column = columnsCount - 1; column >= 0; column--) {
+            int minimumRow = 0;
+
+            for (int row = 1; row < rowsCount; row++) {
+                if (costs[row][column] < costs[minimumRow][column]) {
+                    minimumRow = row;
+                }
+            }
+
+            columnPrices[column] = costs[minimumRow][column];
+
+            if (++assignedColumnsCount[minimumRow] == 1) {
+                assign(minimumRow, column);
+            } else if (columnPrices[column] < columnPrices[columnsAssignedToRows[minimumRow]]) {
+                rowsAssignedToColumns[columnsAssignedToRows[minimumRow]] = NOT_ASSIGNED;
+                assign(minimumRow, column);
+            }
+        }
+
+        return assignedColumnsCount;
+    }
+
+    private void transferReduction(int[] assignedColumnsCount) {
+        freeRows = new int[rowsCount];
+        freeRowsCount = 0;
+
+        for (int row = 0; row < rowsCount; row++) {
+            if (assignedColumnsCount[row] == 0) {
+                freeRows[freeRowsCount++] = row;
+            } else if (assignedColumnsCount[row] == 1) {
+                int assignedColumn = columnsAssignedToRows[row];
+                long minimum = Long.MAX_VALUE;
+
+                for (int column = 0; column < columnsCount; column++) {
+                    if (column != assignedColumn) {
+                        minimum = Math.min(minimum, reducedCost(row, column));
+                    }
+                }
+
+                if (minimum != Long.MAX_VALUE) {
+                    columnPrices[assignedColumn] -= minimum;
+                }
+            }
+        }
+    }
+
+    private void augmentingRowReduction() {
+        int previousFreeRowsCount = freeRowsCount;
+        int current = 0;
+        freeRowsCount = 0;
+
+        while (current < previousFreeRowsCount) {
+            int row = freeRows[current++];
+
+            long minimum = reducedCost(row, 0);
+            long subMinimum = Long.MAX_VALUE;
+            int minimumColumn = 0;
+            int subMinimumColumn = NOT_ASSIGNED;
+
+            for (int column = 1; column < columnsCount; column++) {
+                long reducedCost = reducedCost(row, column);
+
+                if (reducedCost < subMinimum) {
+                    if (reducedCost >= minimum) {
+                        subMinimum = reducedCost;
+                        subMinimumColumn = column;
+                    } else {
+                        subMinimum = minimum;
+                        subMinimumColumn = minimumColumn;
+                        minimum = reducedCost;
+                        minimumColumn = column;
+                    }
+                }
+            }
+
+            int previouslyAssignedRow = rowsAssignedToColumns[minimumColumn];
+
+            if (minimum < subMinimum) {
+                if (subMinimum != Long.MAX_VALUE) {
+                    columnPrices[minimumColumn] -= subMinimum - minimum;
+                }
+            } else if (previouslyAssignedRow != NOT_ASSIGNED) {
+                minimumColumn = subMinimumColumn;
+                previouslyAssignedRow = rowsAssignedToColumns[minimumColumn];
+            }
+
+            if (previouslyAssignedRow != NOT_ASSIGNED) {
+                columnsAssignedToRows[previouslyAssignedRow] = NOT_ASSIGNED;
+            }
+
+            assign(row, minimumColumn);
+
+            if (previouslyAssignedRow != NOT_ASSIGNED) {
+                if (minimum < subMinimum) {
+                    freeRows[--current] = previouslyAssignedRow;
+                } else {
+                    freeRows[freeRowsCount++] = previouslyAssignedRow;
+                }
+            }
+        }
+    }
+
+    private void assign(int row, int column) {
+        columnsAssignedToRows[row] = column;
+        rowsAssignedToColumns[column] = row;
+    }
+
+    /**
+     * Columns are kept in {@code columns} array split into three parts: already scanned columns,
+     * columns with the current minimum distance waiting to be scanned and all the other columns.
+     */
+    private class ShortestAugmentingPath {
+
+        private final long[] distances = new long[columnsCount];
+        private final int[] predecessors = new int[columnsCount];
+        private final int[] columns = new int[columnsCount];
+
+        private int scannedEnd;
+        private int todoEnd;
+        private long minimum;
+
+        private void augment(int freeRow) {
+            for (int column = 0; column < columnsCount; column++) {
+                distances[column] = reducedCost(freeRow, column);
+                predecessors[column] = freeRow;
+                columns[column] = column;
+            }
+
+            scannedEnd = 0;
+            todoEnd = 0;
+            int lastScanned = -1;
+            int endOfPath = NOT_ASSIGNED;
+
+            while (endOfPath == NOT_ASSIGNED) {
+                if (todoEnd == scannedEnd) {
+                    lastScanned = scannedEnd - 1;
+                    endOfPath = collectColumnsWithMinimumDistance();
+                }
+
+                if (endOfPath == NOT_ASSIGNED) {
+                    endOfPath = scan(columns[scannedEnd++]);
+                }
+            }
+
+            for (int k = 0; k <= lastScanned; k++) {
+                int column = columns[k];
+                columnPrices[column] += distances[column] - minimum;
+            }
+
+            int row;
+            do {
+                row = predecessors[endOfPath];
+                rowsAssignedToColumns[endOfPath] = row;
+
+                int nextColumn = columnsAssignedToRows[row];
+                columnsAssignedToRows[row] = endOfPath;
+                endOfPath = nextColumn;
+            } while (row != freeRow);
+        }
+
+        private int collectColumnsWithMinimumDistance() {
+            minimum = distances[columns[todoEnd++]];
+
+            for (int k = todoEnd; k < columnsCount; k++) {
+                int column = columns[k];
+                long distance = distances[column];
+
+                if (distance <= minimum) {
+                    if (distance < minimum) {
+                        todoEnd = scannedEnd;
+                        minimum = distance;
+                    }
+
+                    columns[k] = columns[todoEnd];
+                    columns[todoEnd++] = column;
+                }
+            }
+
+            for (int k = scannedEnd; k < todoEnd; k++) {
+                if (rowsAssignedToColumns[columns[k]] == NOT_ASSIGNED) {
+                    return columns[k];
+                }
+            }
+
+            return NOT_ASSIGNED;
+        }
+
+        private int scan(int scannedColumn) {
+            int row = rowsAssignedToColumns[scannedColumn];
+            long offset = reducedCost(row, scannedColumn) - minimum;
+
+            for (int k = todoEnd; k < columnsCount; k++) {
+                int column = columns[k];
+                long distance = reducedCost(row, column) - offset;
+
+                if (distance < distances[column]) {
+                    predecessors[column] = row;
+
+                    if (distance == minimum) {
+                        if (rowsAssignedToColumns[column] == NOT_ASSIGNED) {
+                            return column;
+                        }
+
+                        columns[k] = columns[todoEnd];
+                        columns[todoEnd++] = column;
+                    }
+
+                    distances[column] = distance;
+                }
+            }
+
+            return NOT_ASSIGNED;
+        }
+    }
+}
@@ -21,30 +21,26 @@
  * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
-package com.github.lukaszkusek.xml.comparator.document;
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
 
-import javax.xml.transform.ErrorListener;
-import javax.xml.transform.TransformerException;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostMatrix;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-class XSLTransformerErrorListener implements ErrorListener {
-
-    private static final Logger LOG = LoggerFactory.getLogger(XSLTransformerErrorListener.class);
+public class JonkerVolgenantMinimumCostAssignmentCalculator implements MinimumCostAssignmentCalculator {
 
     @Override
-    public void warning(TransformerException exception) throws TransformerException {
-        LOG.warn("An exception has been reported during XSLT translation.", exception);
-    }
+    public CostMatrix getMinimumCostAssignment(CostMatrix inputComparisonMatrix) {
+        CostMatrixToCostArrayConverter costMatrixToCostArrayConverter =
+                new CostMatrixToCostArrayConverter(inputComparisonMatrix);
 
-    @Override
-    public void error(TransformerException exception) throws TransformerException {
-        throw exception;
+        if (!costMatrixToCostArrayConverter.isEmpty()) {
+            costMatrixToCostArrayConverter.applyMinimumCostAssignment(
+                    findMinimumCostAssignment(costMatrixToCostArrayConverter.getIntCostArray()));
+        }
+
+        return inputComparisonMatrix;
     }
 
-    @Override
-    public void fatalError(TransformerException exception) throws TransformerException {
-        throw exception;
+    private int[] findMinimumCostAssignment(int[][] costArray) {
+        return new JonkerVolgenantAlgorithm(costArray).execute();
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import java.util.Arrays;
+
+/**
+ * Max-heap of primitive longs with a fixed capacity, so that queues of millions of entries do not box them.
+ */
+class LongMaxHeap {
+
+    private final long[] elements;
+    private int size;
+
+    LongMaxHeap(int capacity) {
+        this.elements = new long[capacity];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean isFull() {
+        return size == elements.length;
+    }
+
+    long peek() {
+        return elements[0];
+    }
+
+    void add(long element) {
+        int index = size++;
+
+        for (int parent = (index - 1) / 2; index > 0 && elements[parent] < element; parent = (index - 1) / 2) {
+            elements[index] = elements[parent];
+            index = parent;
+        }
+
+        elements[index] = element;
+    }
+
+    long poll() {
+        long top = elements[0];
+        long last = elements[--size];
+
+        if (size > 0) {
+            siftDown(last);
+        }
+
+        return top;
+    }
+
+    void replaceTop(long element) {
+        siftDown(element);
+    }
+
+    private void siftDown(long element) {
+        int index = 0;
+
+        for (int child = 1; child < size; child = 2 * index + 1) {
+            if (child + 1 < size && elements[child + 1] > elements[child]) {
+                child++;
+            }
+
+            if (element >= elements[child]) {
+                break;
+            }
+
+            elements[index] = elements[child];
+            index = child;
+        }
+
+        elements[index] = element;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    long[] toSortedArray() {
+        long[] sortedElements = Arrays.copyOf(elements, size);
+        Arrays.sort(sortedElements);
+
+        return sortedElements;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Costs of candidate cells only, kept row by row. Cells of a row are at indexes from {@link #getRowStart(int)}
+ * inclusive to {@link #getRowEnd(int)} exclusive. Cells which are not candidates cannot be assigned.
+ */
+
+class SparseCostArray {
+
+    /**
+     * The largest array length virtual machines allocate.
+     */
+    static final int MAXIMUM_CELLS_COUNT = Integer.MAX_VALUE - 8;
+
+    private final int rowsCount;
+    private final int columnsCount;
+    private final int[] rowStarts;
+    private int[] columns;
+    private int[] costs;
+    private int cellsCount;
+    private int filledRowsCount;
+
+    SparseCostArray(int rowsCount, int columnsCount) {
+        this(rowsCount, columnsCount, rowsCount);
+    }
+
+    /**
+     * @param expectedCellsCount number of cells to allocate up front, so that they are not copied while growing
+     */
+    SparseCostArray(int rowsCount, int columnsCount, long expectedCellsCount) {
+        Preconditions.checkArgument(
+                expectedCellsCount <= MAXIMUM_CELLS_COUNT, "Too many candidate cells: %s.", expectedCellsCount);
+
+        this.rowsCount = rowsCount;
+        this.columnsCount = columnsCount;
+        this.rowStarts = new int[rowsCount + 1];
+        this.columns = new int[Math.max(1, (int) expectedCellsCount)];
+        this.costs = new int[columns.length];
+    }
+
+    /**
+     * Adds a cell to the row being filled.
+     */
+    void add(int column, int cost) {
+        if (cellsCount == columns.length) {
+            Preconditions.checkState(cellsCount < MAXIMUM_CELLS_COUNT, "Too many candidate cells.");
+
+            int capacity = (int) Math.min(2L * cellsCount, MAXIMUM_CELLS_COUNT);
+            columns = Arrays.copyOf(columns, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+        }
+
+        columns[cellsCount] = column;
+        costs[cellsCount] = cost;
+        cellsCount++;
+    }
+
+    /**
+     * Finishes filling the current row, next cells are added to the following one.
+     */
+    void nextRow() {
+        rowStarts[++filledRowsCount] = cellsCount;
+    }
+
+    int getRowsCount() {
+        return rowsCount;
+    }
+
+    int getColumnsCount() {
+        return columnsCount;
+    }
+
+    int getCellsCount() {
+        return cellsCount;
+    }
+
+    int getRowStart(int row) {
+        return rowStarts[row];
+    }
+
+    int getRowEnd(int row) {
+        return rowStarts[row + 1];
+    }
+
+    int getColumn(int cell) {
+        return columns[cell];
+    }
+
+    int getCost(int cell) {
+        return costs[cell];
+    }
+}
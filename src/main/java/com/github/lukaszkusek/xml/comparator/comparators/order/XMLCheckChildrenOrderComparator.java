@@ -29,20 +29,20 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
 import com.github.lukaszkusek.xml.comparator.comparators.XMLComparatorStep;
 import com.github.lukaszkusek.xml.comparator.diff.DifferenceCode;
-import com.github.lukaszkusek.xml.comparator.diff.DifferenceDetails;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceListener;
 import com.github.lukaszkusek.xml.comparator.node.Node;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang.ObjectUtils;
 
 public class XMLCheckChildrenOrderComparator implements XMLComparatorStep {
 
     @Override
-    public DifferenceDetails compare(Node node1, Node node2) {
+    public void compare(Node node1, Node node2, ComparisonContext context, DifferenceListener differenceListener) {
         List<String> xPaths1 = getSortedChildrenXPaths(node1);
         List<String> xPaths2 = getSortedChildrenXPaths(node2);
 
@@ -53,18 +53,14 @@ public class XMLCheckChildrenOrderComparator implements XMLComparatorStep {
 
         List<XPathPair> xPaths = zip(commonXPaths1, commonXPaths2);
 
-        return xPaths.stream()
-                .map(xPathPair -> {
-                    if (!ObjectUtils.equals(xPathPair.xPath1, xPathPair.xPath2)) {
-                        return DifferenceDetails.of(
-                                firstChildWithGivenXPath(node1, xPathPair.xPath1),
-                                firstChildWithGivenXPath(node2, xPathPair.xPath2),
-                                DifferenceCode.INCORRECT_ORDER);
-                    }
-
-                    return DifferenceDetails.empty();
-                })
-                .reduce(new DifferenceDetails(), DifferenceDetails::putAll);
+        xPaths.forEach(xPathPair -> {
+            if (!ObjectUtils.equals(xPathPair.xPath1, xPathPair.xPath2)) {
+                differenceListener.onDifference(
+                        firstChildWithGivenXPath(node1, xPathPair.xPath1),
+                        firstChildWithGivenXPath(node2, xPathPair.xPath2),
+                        DifferenceCode.INCORRECT_ORDER);
+            }
+        });
     }
 
     private static class XpathWithIndex {
@@ -78,11 +74,8 @@ public class XMLCheckChildrenOrderComparator implements XMLComparatorStep {
     }
 
     private List<String> getSortedChildrenXPaths(Node node) {
-        return Maps.transformEntries(
-                node.getChildren().asMap(),
-                (xpath, nodes) -> new XpathWithIndex(xpath, first(nodes).getIndex()))
-                .values()
-                .stream()
+        return node.getChildrenXPaths().stream()
+                .map(xpath -> new XpathWithIndex(xpath, first(node.getChildren(xpath)).getIndex()))
                 .sorted((xpath1, xpath2) -> Integer.compare(xpath1.index, xpath2.index))
                 .map(xPathWithIndex -> xPathWithIndex.xPath)
                 .collect(Collectors.toList());
@@ -123,6 +116,6 @@ public class XMLCheckChildrenOrderComparator implements XMLComparatorStep {
     }
 
     private Node firstChildWithGivenXPath(Node node1, String xPath) {
-        return first(node1.getChildren().get(xPath));
+        return first(node1.getChildren(xPath));
     }
 }
@@ -26,9 +26,10 @@ package com.github.lukaszkusek.xml.comparator.comparators.values;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
 import com.github.lukaszkusek.xml.comparator.comparators.XMLComparatorStep;
 import com.github.lukaszkusek.xml.comparator.diff.DifferenceCode;
-import com.github.lukaszkusek.xml.comparator.diff.DifferenceDetails;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceListener;
 import com.github.lukaszkusek.xml.comparator.node.Node;
 import org.apache.commons.lang.ObjectUtils;
 
@@ -41,20 +42,18 @@ public class XMLValuesComparator implements XMLComparatorStep {
     }
 
     @Override
-    public DifferenceDetails compare(Node node1, Node node2) {
+    public void compare(Node node1, Node node2, ComparisonContext context, DifferenceListener differenceListener) {
         Pattern pattern = valueExtractors.get(node1.getXPath());
 
         String node1Value = node1.extractValue(pattern);
         String node2Value = node2.extractValue(pattern);
 
         if (!ObjectUtils.equals(node1Value, node2Value)) {
-            return DifferenceDetails.of(
+            differenceListener.onDifference(
                     node1,
                     node2,
                     DifferenceCode.DIFFERENT_VALUE);
         }
-
-        return DifferenceDetails.empty();
     }
 
 }
@@ -21,14 +21,18 @@
  * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
-package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
+package com.github.lukaszkusek.xml.comparator.diff;
 
-import com.github.lukaszkusek.xml.comparator.node.INode;
+public class DifferenceCounter implements DifferenceListener {
 
-class NullNode implements INode {
+    private int count;
 
     @Override
-    public boolean isNull() {
-        return true;
+    public void onDifference(DifferenceInformation differenceInformation) {
+        count++;
+    }
+
+    public int getCount() {
+        return count;
     }
 }
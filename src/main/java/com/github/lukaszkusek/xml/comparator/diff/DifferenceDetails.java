@@ -23,7 +23,6 @@
 
 package com.github.lukaszkusek.xml.comparator.diff;
 
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -31,7 +30,7 @@ import java.util.stream.Collectors;
 import com.github.lukaszkusek.xml.comparator.node.Node;
 import com.google.common.collect.Sets;
 
-public class DifferenceDetails  {
+public class DifferenceDetails implements DifferenceListener {
 
     private Set<DifferenceInformation> differenceInformationSet;
     private Set<DifferenceInformation> uniqueDifferenceInformationSet;
@@ -66,17 +65,22 @@ public class DifferenceDetails  {
     }
 
     public DifferenceDetails put(Node node1, Node node2, String attributeName, DifferenceCode differenceCode) {
-        differenceInformationSet.add(new DifferenceInformation(node1, node2, attributeName, differenceCode));
-        uniqueDifferenceInformationSet.add(
-                new DifferenceInformation(
-                        Optional.ofNullable(node1).map(SimpleXPathNode::new).orElse(null),
-                        Optional.ofNullable(node2).map(SimpleXPathNode::new).orElse(null),
-                        attributeName,
-                        differenceCode));
+        onDifference(new DifferenceInformation(node1, node2, attributeName, differenceCode));
 
         return this;
     }
 
+    @Override
+    public void onDifference(DifferenceInformation differenceInformation) {
+        differenceInformationSet.add(differenceInformation);
+        uniqueDifferenceInformationSet.add(
+                new DifferenceInformation(
+                        differenceInformation.getNode1().map(SimpleXPathNode::new).orElse(null),
+                        differenceInformation.getNode2().map(SimpleXPathNode::new).orElse(null),
+                        differenceInformation.getAttributeName(),
+                        differenceInformation.getDifferenceCode()));
+    }
+
     public DifferenceDetails putAll(DifferenceDetails differenceDetails) {
         this.differenceInformationSet.addAll(differenceDetails.getDifferenceInformationSet());
         this.uniqueDifferenceInformationSet.addAll(differenceDetails.getUniqueDifferenceInformationSet());
@@ -21,36 +21,28 @@
  * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
-package com.github.lukaszkusek.xml.comparator.document;
+package com.github.lukaszkusek.xml.comparator.diff;
 
-import java.io.IOException;
-import java.util.Collection;
+import com.github.lukaszkusek.xml.comparator.node.Node;
 
-import com.google.common.collect.Lists;
-import com.google.common.io.LineProcessor;
-
-class XPathLineProcessor implements LineProcessor<Collection<XPathLine>> {
+/**
+ * Receives differences as soon as they are found, so they don't have to be kept in memory by the comparator.
+ */
+public interface DifferenceListener {
 
-    private int currentIndex;
-    private Collection<XPathLine> xpathLines;
-    private boolean ignoreNamespace;
+    void onDifference(DifferenceInformation differenceInformation);
 
-    XPathLineProcessor(boolean ignoreNamespace) {
-        this.ignoreNamespace = ignoreNamespace;
-        this.xpathLines = Lists.newArrayList();
+    /**
+     * Called instead of reporting a difference over the maximum number of differences, the comparison stops then.
+     */
+    default void onTruncated() {
     }
 
-    @Override
-    public boolean processLine(String line) throws IOException {
-        if (line != null) {
-            xpathLines.add(new XPathLine(currentIndex++, line, ignoreNamespace));
-        }
-
-        return true;
+    default void onDifference(Node node1, Node node2, DifferenceCode differenceCode) {
+        onDifference(node1, node2, null, differenceCode);
     }
 
-    @Override
-    public Collection<XPathLine> getResult() {
-        return xpathLines;
+    default void onDifference(Node node1, Node node2, String attributeName, DifferenceCode differenceCode) {
+        onDifference(new DifferenceInformation(node1, node2, attributeName, differenceCode));
     }
 }
@@ -25,10 +25,16 @@ package com.github.lukaszkusek.xml.comparator.diff;
 
 import com.github.lukaszkusek.xml.comparator.node.Node;
 
+/**
+ * Node of a unique difference, standing for all Nodes of the same simple XPath. Only index, simple XPath
+ * and name are taken from given Node, the simple XPath being the XPath too, so neither the XPath of given Node
+ * is built nor a columnar Node is compacted into a Node with its attributes and children.
+ */
 class SimpleXPathNode extends Node {
 
     SimpleXPathNode(Node node) {
-        super(node);
+        super(node.getIndex(), node.getSimpleXPath());
+        freeze();
     }
 
     @Override
@@ -33,11 +33,19 @@ public class XMLDiff {
     private XMLDocument xmlDocument1;
     private XMLDocument xmlDocument2;
     private DifferenceDetails differenceDetails;
+    private boolean truncated;
 
     public XMLDiff(XMLDocument xmlDocument1, XMLDocument xmlDocument2, DifferenceDetails differenceDetails) {
+        this(xmlDocument1, xmlDocument2, differenceDetails, false);
+    }
+
+    public XMLDiff(
+            XMLDocument xmlDocument1, XMLDocument xmlDocument2, DifferenceDetails differenceDetails, boolean truncated) {
+
         this.xmlDocument1 = xmlDocument1;
         this.xmlDocument2 = xmlDocument2;
         this.differenceDetails = differenceDetails;
+        this.truncated = truncated;
     }
 
     public XMLDocument getXmlDocument1() {
@@ -48,6 +56,14 @@ public class XMLDiff {
         return xmlDocument2;
     }
 
+    /**
+     * Comparison stopped after the maximum number of differences had been found, so there are more differences
+     * than reported by this diff.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
     public int getDifferencesCount() {
         return differenceDetails.getCount();
     }
@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.document;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.github.lukaszkusek.xml.comparator.node.ColumnarTree;
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.base.Strings;
+
+/**
+ * Builds {@link ColumnarTree} in a single pass over StAX events, with the same XPaths, values, attributes
+ * and indexes as {@link XMLNodeTreeBuilder}.
+ */
+class ColumnarTreeBuilder {
+
+    private final boolean ignoreNamespace;
+
+    ColumnarTreeBuilder(boolean ignoreNamespace) {
+        this.ignoreNamespace = ignoreNamespace;
+    }
+
+    Node build(String xml) throws XMLStreamException {
+        XMLStreamReader reader = XMLNodeTreeBuilder.XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+
+        try {
+            ColumnarTree tree = new ColumnarTree();
+            readElements(reader, tree);
+
+            return tree.complete();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void readElements(XMLStreamReader reader, ColumnarTree tree) throws XMLStreamException {
+        Deque<OpenElement> openElements = new ArrayDeque<>();
+
+        while (reader.hasNext()) {
+            //@formatter:off
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    OpenElement parent = openElements.peek();
+                    int element = readElement(reader, tree, parent);
+
+                    if (parent != null) {
+                        parent.hasChildren = true;
+                    }
+
+                    openElements.push(new OpenElement(element));
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (!openElements.isEmpty()) {
+                        openElements.peek().text.append(reader.getText());
+                    }
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    openElements.pop().close(tree);
+                    break;
+
+                default:
+            }
+            //@formatter:on
+        }
+    }
+
+    private int readElement(XMLStreamReader reader, ColumnarTree tree, OpenElement parent) {
+        String name = ignoreNamespace
+                ? reader.getLocalName()
+                : XMLNodeTreeBuilder.getQualifiedName(reader.getPrefix(), reader.getLocalName());
+        int element = tree.addElement(parent == null ? ColumnarTree.NONE : parent.element, name);
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            tree.addAttribute(
+                    XMLNodeTreeBuilder.getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                    reader.getAttributeValue(i));
+        }
+
+        return element;
+    }
+
+    private static class OpenElement {
+
+        private final int element;
+        private final StringBuilder text = new StringBuilder();
+        private boolean hasChildren;
+
+        private OpenElement(int element) {
+            this.element = element;
+        }
+
+        private void close(ColumnarTree tree) {
+            if (!hasChildren) {
+                tree.setValue(element, Strings.emptyToNull(text.toString().replace('\n', ' ').trim()));
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.document;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Calculates {@link Node#getSubtreeHash()} bottom-up.
+ * <p>
+ * Children of the same type are hashed as a collection, not a list, so elements of the same type
+ * in a different order have the same hash, while the order of elements of different types is preserved.
+ * Children with ordered simple XPaths are hashed as a list.
+ * Values and attributes with a value extractor are hashed as the extracted value together with the extractor.
+ */
+class SubtreeHashCalculator {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private static final int NULL = 0;
+    private static final int RAW = 1;
+    private static final int EXTRACTED = 2;
+
+    private final Map<String, Pattern> valueExtractors;
+    private final Set<String> orderedXPaths;
+
+    SubtreeHashCalculator(Map<String, Pattern> valueExtractors, Set<String> orderedXPaths) {
+        this.valueExtractors = valueExtractors;
+        this.orderedXPaths = orderedXPaths;
+    }
+
+    long calculate(Node node) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+
+        putValue(hasher, node, getValueExtractor(node, ""));
+        putAttributes(hasher, node);
+        putChildren(hasher, node);
+
+        long subtreeHash = hasher.hash().asLong();
+        node.setSubtreeHash(subtreeHash);
+
+        return subtreeHash;
+    }
+
+    private void putAttributes(Hasher hasher, Node node) {
+        hasher.putInt(node.getAttributes().size());
+
+        node.getAttributesNames().stream()
+                .sorted()
+                .forEach(attributeName -> {
+                    Pattern pattern = getValueExtractor(node, "/@" + attributeName);
+
+                    putString(hasher, attributeName);
+                    putValue(hasher, pattern, node.extractAttributeValue(attributeName, pattern));
+                });
+    }
+
+    /**
+     * XPaths are resolved only if there are value extractors, so that Nodes do not keep them until compared.
+     */
+    private Pattern getValueExtractor(Node node, String xPathSuffix) {
+        return valueExtractors.isEmpty() ? null : valueExtractors.get(node.getXPath() + xPathSuffix);
+    }
+
+    private void putChildren(Hasher hasher, Node node) {
+        List<Node> children = node.getChildrenXPaths().stream()
+                .flatMap(childrenXPath -> node.getChildren(childrenXPath).stream())
+                .sorted(Comparator.comparingInt(Node::getIndex))
+                .collect(Collectors.toList());
+
+        hasher.putInt(children.size());
+        children.forEach(child -> putString(hasher, child.getSimpleXPath()));
+
+        children.stream()
+                .map(Node::getSimpleXPath)
+                .distinct()
+                .forEach(childrenXPath ->
+                        putChildrenOfTheSameType(hasher, childrenXPath, node.getChildren(childrenXPath)));
+    }
+
+    private void putChildrenOfTheSameType(Hasher hasher, String childrenXPath, Collection<Node> childrenOfTheSameType) {
+        if (orderedXPaths.contains(childrenXPath)) {
+            childrenOfTheSameType.stream()
+                    .mapToLong(this::calculate)
+                    .forEach(hasher::putLong);
+        } else {
+            childrenOfTheSameType.stream()
+                    .mapToLong(this::calculate)
+                    .sorted()
+                    .forEach(hasher::putLong);
+        }
+    }
+
+    private static void putValue(Hasher hasher, Node node, Pattern pattern) {
+        putValue(hasher, pattern, node.getValue() == null ? null : node.extractValue(pattern));
+    }
+
+    private static void putValue(Hasher hasher, Pattern pattern, String value) {
+        if (value == null) {
+            hasher.putInt(NULL);
+        } else if (pattern == null) {
+            hasher.putInt(RAW);
+            putString(hasher, value);
+        } else {
+            hasher.putInt(EXTRACTED);
+            putString(hasher, pattern.pattern());
+            hasher.putInt(pattern.flags());
+            putString(hasher, value);
+        }
+    }
+
+    private static void putString(Hasher hasher, String string) {
+        hasher.putInt(string.length());
+        hasher.putUnencodedChars(string);
+    }
+}
@@ -23,105 +23,90 @@
 
 package com.github.lukaszkusek.xml.comparator.document;
 
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.TransformerException;
 import java.io.IOException;
-import java.io.StringReader;
-import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
+import com.github.lukaszkusek.xml.comparator.node.ColumnarTree;
 import com.github.lukaszkusek.xml.comparator.node.Node;
-import com.google.common.base.Predicate;
-import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
-import com.google.common.io.CharStreams;
 
 public class XMLDocument {
 
     private Node rootNode;
-
-    private XMLDocument(String xml, boolean ignoreNamespace) throws TransformerException, IOException {
-        rootNode =
-                findRootNode(
-                        buildNodeTree(
-                                createNodeMap(
-                                        createNodeMultiMap(
-                                                extractXPathLines(xml, ignoreNamespace)))));
-    }
-
-    private Collection<XPathLine> extractXPathLines(String xml, boolean ignoreNamespace)
-            throws IOException, TransformerException {
-
-        return CharStreams.readLines(
-                new StringInputSupplier(
-                        new StringReader(
-                                XMLToXPathsTransformer.translate(xml))),
-                new XPathLineProcessor(ignoreNamespace));
-    }
-
-    private Multimap<String, Node> createNodeMultiMap(Collection<XPathLine> xPathLines) {
-        return Multimaps.transformValues(
-                FluentIterable.from(xPathLines).index(XPathLine::getXPath),
-                xPathLine -> {
-                    Node node = new Node(xPathLine.getIndex(), xPathLine.getXPath());
-                    node.setValue(xPathLine.getValue());
-                    node.putAttribute(xPathLine.getAttributeName(), xPathLine.getAttributeValue());
-
-                    return node;
-                });
-    }
-
-    private Map<String, Node> createNodeMap(Multimap<String, Node> xpathToNodeMultimap) {
-        return Maps.newHashMap(
-                Maps.transformEntries(
-                        xpathToNodeMultimap.asMap(),
-                        (key, nodes) -> nodes.stream().reduce(Node::merge).get()));
+    private Map<String, Pattern> valueExtractors;
+    private Set<String> orderedXPaths;
+
+    private XMLDocument(
+            String xml, boolean ignoreNamespace, Map<String, Pattern> valueExtractors, Set<String> orderedXPaths,
+            boolean columnar) throws TransformerException, IOException {
+
+        try {
+            rootNode = columnar
+                    ? new ColumnarTreeBuilder(ignoreNamespace).build(xml)
+                    : new XMLNodeTreeBuilder(ignoreNamespace).build(xml);
+        } catch (XMLStreamException e) {
+            throw new TransformerException("Cannot parse XML document.", e);
+        }
+
+        this.valueExtractors = valueExtractors;
+        this.orderedXPaths = orderedXPaths;
+        new SubtreeHashCalculator(valueExtractors, orderedXPaths).calculate(rootNode);
+        rootNode.freeze();
     }
 
-    private Collection<Node> buildNodeTree(Map<String, Node> xpathToNodeMap) {
-        xpathToNodeMap.forEach(
-                (xPath, child) -> {
-                    String parentKey = extractParentXPath(xPath);
-
-                    if (hasParent(parentKey)) {
-                        Node parent = xpathToNodeMap.get(parentKey);
+    /**
+     * Columnar document keeps its elements in a {@link ColumnarTree} read through {@link Node} flyweights,
+     * which takes several times less memory than a tree of Nodes, at the cost of creating a Node on each access.
+     */
+    public static XMLDocument fromXML(
+            String xml, boolean ignoreNamespace, Map<String, Pattern> valueExtractors, Set<String> orderedXPaths,
+            boolean columnar) throws TransformerException, IOException {
 
-                        linkChildWithParent(parent, child, xPath);
-                    }
-                });
-
-        return xpathToNodeMap.values();
+        return new XMLDocument(xml, ignoreNamespace, valueExtractors, orderedXPaths, columnar);
     }
 
-    private Node findRootNode(Collection<Node> nodes) {
-        return FluentIterable.from(nodes).filter(isRoot()).first().get();
-    }
+    /**
+     * Children with given simple XPaths are hashed as lists, as needed to compare them in order or by positions.
+     */
+    public static XMLDocument fromXML(
+            String xml, boolean ignoreNamespace, Map<String, Pattern> valueExtractors, Set<String> orderedXPaths)
+            throws TransformerException, IOException {
 
-    private Predicate<Node> isRoot() {
-        return node -> node.getParent() == null;
+        return new XMLDocument(xml, ignoreNamespace, valueExtractors, orderedXPaths, false);
     }
 
-    private void linkChildWithParent(Node parent, Node child, String childKey) {
-        child.setParent(parent);
+    public static XMLDocument fromXML(String xml, boolean ignoreNamespace, Map<String, Pattern> valueExtractors)
+            throws TransformerException, IOException {
 
-        parent.addChild(childKey, child);
+        return new XMLDocument(xml, ignoreNamespace, valueExtractors, ImmutableSet.of(), false);
     }
 
-    private boolean hasParent(String parentKey) {
-        return !parentKey.isEmpty();
+    public static XMLDocument fromXML(String xml, boolean ignoreNamespace) throws TransformerException, IOException {
+        return new XMLDocument(xml, ignoreNamespace, ImmutableMap.of(), ImmutableSet.of(), false);
     }
 
-    private String extractParentXPath(String xPath) {
-        return xPath.replaceAll("/[^/]+$", "");
+    public static XMLDocument fromXML(String xml) throws TransformerException, IOException {
+        return new XMLDocument(xml, true, ImmutableMap.of(), ImmutableSet.of(), false);
     }
 
-    public static XMLDocument fromXML(String xml, boolean ignoreNamespace) throws TransformerException, IOException {
-        return new XMLDocument(xml, ignoreNamespace);
+    /**
+     * Subtree hashes can be used to skip comparison only if they have been calculated without value extractors
+     * or with the same value extractors as used for comparison, and with the same ordered XPaths.
+     */
+    public boolean hasSubtreeHashesValidFor(Map<String, Pattern> valueExtractors, Set<String> orderedXPaths) {
+        return (this.valueExtractors.isEmpty()
+                || toComparableForm(this.valueExtractors).equals(toComparableForm(valueExtractors)))
+                && this.orderedXPaths.equals(orderedXPaths);
     }
 
-    public static XMLDocument fromXML(String xml) throws TransformerException, IOException {
-        return new XMLDocument(xml, true);
+    private static Map<String, String> toComparableForm(Map<String, Pattern> valueExtractors) {
+        return Maps.newHashMap(Maps.transformValues(valueExtractors, pattern -> pattern.flags() + "/" + pattern));
     }
 
     public Node getRootNode() {
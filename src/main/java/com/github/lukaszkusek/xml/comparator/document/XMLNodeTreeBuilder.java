@@ -0,0 +1,204 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.document;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Builds {@link Node} tree in a single pass over StAX events.
+ * <p>
+ * Produces the same XPaths, values, attributes and indexes as the former XSLT based transformation:
+ * every element and every attribute consumes one index, whitespace only text is ignored
+ * and only elements without child elements have a value.
+ * <p>
+ * Sibling positions are counted per parent and element name while reading. The {@code [1]} predicate
+ * is added to the first sibling only when the second sibling with the same name is found,
+ * which is possible because {@link Node} resolves its XPath lazily.
+ * <p>
+ * Element and attribute names are shared by all Nodes of the document using the same names.
+ */
+class XMLNodeTreeBuilder {
+
+    static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
+
+    private final boolean ignoreNamespace;
+    private final Map<String, String> names = Maps.newHashMap();
+
+    private int currentIndex;
+
+    XMLNodeTreeBuilder(boolean ignoreNamespace) {
+        this.ignoreNamespace = ignoreNamespace;
+    }
+
+    private static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        return xmlInputFactory;
+    }
+
+    Node build(String xml) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+
+        try {
+            List<Node> nodes = readNodes(reader);
+            linkChildrenWithParents(nodes);
+
+            return nodes.get(0);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private List<Node> readNodes(XMLStreamReader reader) throws XMLStreamException {
+        Deque<OpenElement> openElements = new ArrayDeque<>();
+        List<Node> nodes = Lists.newArrayList();
+
+        while (reader.hasNext()) {
+            //@formatter:off
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    OpenElement parent = openElements.peek();
+                    String name = getName(reader.getPrefix(), reader.getLocalName());
+                    Node node = readNode(reader, name, parent);
+
+                    if (parent != null) {
+                        parent.addChild(name, node);
+                    }
+
+                    nodes.add(node);
+                    openElements.push(new OpenElement(node));
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (!openElements.isEmpty()) {
+                        openElements.peek().text.append(reader.getText());
+                    }
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    openElements.pop().close();
+                    break;
+
+                default:
+            }
+            //@formatter:on
+        }
+
+        return nodes;
+    }
+
+    private Node readNode(XMLStreamReader reader, String name, OpenElement parent) {
+        Node node = new Node(currentIndex++, name, parent == null ? null : parent.node);
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            node.putAttribute(
+                    share(getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i))),
+                    reader.getAttributeValue(i));
+            currentIndex++;
+        }
+
+        return node;
+    }
+
+    private String getName(String prefix, String localName) {
+        if (ignoreNamespace) {
+            return share(localName);
+        }
+
+        return share(getQualifiedName(prefix, localName));
+    }
+
+    private String share(String name) {
+        return names.computeIfAbsent(name, Function.identity());
+    }
+
+    static String getQualifiedName(String prefix, String localName) {
+        if (Strings.isNullOrEmpty(prefix)) {
+            return localName;
+        }
+
+        return prefix + ":" + localName;
+    }
+
+    /**
+     * Children are grouped only after the whole document has been read
+     * because positions, and therefore XPaths used for hashing, can change until then.
+     */
+    private void linkChildrenWithParents(List<Node> nodes) {
+        nodes.stream()
+                .filter(node -> node.getParent() != null)
+                .forEach(node -> node.getParent().addChild(node));
+    }
+
+    private static class OpenElement {
+
+        private final Node node;
+        private final StringBuilder text = new StringBuilder();
+        private Map<String, Node> lastChildrenByName;
+
+        private OpenElement(Node node) {
+            this.node = node;
+        }
+
+        private void addChild(String name, Node child) {
+            if (lastChildrenByName == null) {
+                lastChildrenByName = Maps.newHashMap();
+            }
+
+            Node previousSibling = lastChildrenByName.put(name, child);
+
+            if (previousSibling != null) {
+                if (previousSibling.getPosition() == 0) {
+                    previousSibling.setPosition(1);
+                }
+
+                child.setPosition(previousSibling.getPosition() + 1);
+            }
+        }
+
+        private void close() {
+            if (lastChildrenByName == null) {
+                node.setValue(Strings.emptyToNull(text.toString().replace('\n', ' ').trim()));
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.node;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+
+/**
+ * Flyweight reading an element of {@link ColumnarTree}. It keeps only the tree and the number of the element,
+ * so it is created whenever the element is accessed. Like other Nodes, flyweights are equal when their XPaths
+ * are, which is checked without building the XPaths.
+ * It cannot be changed, except for its subtree hash, which can be set until the tree is frozen.
+ */
+class ColumnarNode extends Node {
+
+    private final ColumnarTree tree;
+    private final int element;
+    private String xPath;
+
+    ColumnarNode(ColumnarTree tree, int element) {
+        this.tree = tree;
+        this.element = element;
+    }
+
+    private static IllegalStateException cannotChange() {
+        return new IllegalStateException("Cannot change Node of columnar tree.");
+    }
+
+    @Override
+    public void setParent(Node parent) {
+        throw cannotChange();
+    }
+
+    @Override
+    public void setPosition(int position) {
+        throw cannotChange();
+    }
+
+    @Override
+    public void setSubtreeHash(long subtreeHash) {
+        tree.setSubtreeHash(element, subtreeHash);
+    }
+
+    @Override
+    public void setValue(String value) {
+        throw cannotChange();
+    }
+
+    @Override
+    public void putAttribute(String key, String value) {
+        throw cannotChange();
+    }
+
+    @Override
+    public void addChild(String xpath, Node child) {
+        throw cannotChange();
+    }
+
+    @Override
+    public void addChild(Node child) {
+        throw cannotChange();
+    }
+
+    @Override
+    Node compact() {
+        Node node = new Node(getIndex(), getXPath());
+
+        getAttributes().forEach(node::putAttribute);
+        getChildrenXPaths().forEach(childrenXPath -> getChildren(childrenXPath).forEach(node::addChild));
+        node.setSubtreeHash(getSubtreeHash());
+
+        return node.compact();
+    }
+
+    @Override
+    public void freeze() {
+        tree.freeze();
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return tree.isFrozen();
+    }
+
+    @Override
+    public int getIndex() {
+        return tree.getIndex(element);
+    }
+
+    @Override
+    public String getXPath() {
+        if (xPath == null) {
+            xPath = tree.getXPath(element);
+        }
+
+        return xPath;
+    }
+
+    @Override
+    public String getSimpleXPath() {
+        return tree.getSimpleXPath(element);
+    }
+
+    @Override
+    public String getName() {
+        int position = getPosition();
+
+        return position > 0 ? tree.getName(element) + "[" + position + "]" : tree.getName(element);
+    }
+
+    @Override
+    public int getPosition() {
+        return tree.getPosition(element);
+    }
+
+    @Override
+    public Node getParent() {
+        return tree.getNode(tree.getParent(element));
+    }
+
+    @Override
+    public String getValue() {
+        return tree.getValue(element);
+    }
+
+    @Override
+    public long getSubtreeHash() {
+        return tree.getSubtreeHash(element);
+    }
+
+    @Override
+    public Map<String, String> getAttributes() {
+        Map<String, String> attributes = Maps.newLinkedHashMap();
+
+        int attributesEnd = tree.getAttributesEnd(element);
+
+        for (int attribute = tree.getAttributesOffset(element); attribute < attributesEnd; attribute++) {
+            attributes.put(tree.getAttributeName(attribute), tree.getAttributeValue(attribute));
+        }
+
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    @Override
+    public Multimap<String, Node> getChildren() {
+        ImmutableListMultimap.Builder<String, Node> childrenBuilder = ImmutableListMultimap.builder();
+
+        getChildrenXPaths()
+                .forEach(childrenXPath -> childrenBuilder.putAll(childrenXPath, getChildren(childrenXPath)));
+
+        return childrenBuilder.build();
+    }
+
+    @Override
+    public String getAttribute(String attributeName) {
+        int attribute = attributeName == null ? -1 : tree.findAttribute(element, attributeName);
+
+        return attribute < 0 ? null : tree.getAttributeValue(attribute);
+    }
+
+    @Override
+    public Set<String> getAttributesNames() {
+        ImmutableSet.Builder<String> attributesNames = ImmutableSet.builder();
+
+        int attributesEnd = tree.getAttributesEnd(element);
+
+        for (int attribute = tree.getAttributesOffset(element); attribute < attributesEnd; attribute++) {
+            attributesNames.add(tree.getAttributeName(attribute));
+        }
+
+        return attributesNames.build();
+    }
+
+    /**
+     * Simple XPaths of the first children of each type.
+     */
+    @Override
+    public Set<String> getChildrenXPaths() {
+        ImmutableSortedSet.Builder<String> childrenXPaths = ImmutableSortedSet.naturalOrder();
+
+        for (int child = tree.getFirstChild(element); child != ColumnarTree.NONE; child = tree.getNextSibling(child)) {
+            if (tree.getPosition(child) <= 1) {
+                childrenXPaths.add(tree.getSimpleXPath(child));
+            }
+        }
+
+        return childrenXPaths.build();
+    }
+
+    @Override
+    public Collection<Node> getChildren(String childrenXPath) {
+        int simpleXPathSymbol = tree.findSimpleXPathSymbol(childrenXPath);
+
+        if (simpleXPathSymbol == ColumnarTree.NONE) {
+            return Collections.emptyList();
+        }
+
+        int child = tree.getFirstChild(element);
+
+        while (child != ColumnarTree.NONE && tree.getSimpleXPathSymbol(child) != simpleXPathSymbol) {
+            child = tree.getNextSibling(child);
+        }
+
+        List<Node> children = Lists.newArrayList();
+
+        for (; child != ColumnarTree.NONE; child = tree.getNextSiblingOfTheSameType(child)) {
+            children.add(tree.getNode(child));
+        }
+
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Elements of the same tree have different XPaths, so only their numbers are compared.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ColumnarNode node = (ColumnarNode) o;
+
+        return node.tree == tree ? node.element == element : tree.hasEqualXPath(element, node.tree, node.element);
+    }
+
+    @Override
+    public int hashCode() {
+        return tree.getXPathHashCode(element);
+    }
+}
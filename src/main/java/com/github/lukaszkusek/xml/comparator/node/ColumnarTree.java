@@ -0,0 +1,461 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.node;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Document kept in parallel primitive arrays instead of {@link Node} objects. Elements are numbered in document
+ * order and each of them takes a fixed number of array cells: its parent, first child, next sibling and next
+ * sibling of the same type, symbols of its name and simple XPath, offset and length of its value in a buffer
+ * shared by all values, and the beginning of its range of attributes. Names and simple XPaths are kept once
+ * per document in a table of symbols.
+ * <p>
+ * Elements are read through {@link Node} flyweights created on access, so a document of millions of elements
+ * takes tens of bytes per element instead of hundreds taken by objects, references and their headers.
+ * <p>
+ * The tree is built by {@link #addElement(int, String)}, {@link #addAttribute(String, String)}
+ * and {@link #setValue(int, String)} and then {@link #complete() completed}. Subtree hashes can be set
+ * until its root Node is {@link Node#freeze() frozen}, after which the tree can be read by many threads.
+ */
+public class ColumnarTree {
+
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> symbolIds = Maps.newHashMap();
+    private final List<String> symbols = Lists.newArrayList();
+    private final Map<Long, Integer> childrenSimpleXPaths = Maps.newHashMap();
+    private final StringBuilder valuesBuffer = new StringBuilder();
+
+    private int size;
+    private int nextIndex;
+    private int[] indexes = new int[INITIAL_CAPACITY];
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] firstChildren = new int[INITIAL_CAPACITY];
+    private int[] lastChildren = new int[INITIAL_CAPACITY];
+    private int[] nextSiblings = new int[INITIAL_CAPACITY];
+    private int[] nextSiblingsOfTheSameType = new int[INITIAL_CAPACITY];
+    private int[] names = new int[INITIAL_CAPACITY];
+    private int[] simpleXPaths = new int[INITIAL_CAPACITY];
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private int[] valuesOffsets = new int[INITIAL_CAPACITY];
+    private int[] valuesLengths = new int[INITIAL_CAPACITY];
+    private int[] attributesOffsets = new int[INITIAL_CAPACITY];
+    private long[] subtreeHashes = new long[INITIAL_CAPACITY];
+
+    private int attributesCount;
+    private int[] attributesNames = new int[INITIAL_CAPACITY];
+    private int[] attributesValuesOffsets = new int[INITIAL_CAPACITY];
+    private int[] attributesValuesLengths = new int[INITIAL_CAPACITY];
+
+    private char[] values;
+    private boolean completed;
+    private boolean frozen;
+
+    /**
+     * Adds element as the last child of given parent, or as the root if the parent is {@link #NONE}.
+     * Like in {@link Node} trees, every element and every attribute consumes one index.
+     *
+     * @return number of the element in document order
+     */
+    public int addElement(int parent, String name) {
+        Preconditions.checkState(!completed, "Cannot add element to completed tree.");
+        Preconditions.checkArgument(parent == NONE ? size == 0 : parent >= 0 && parent < size,
+                "Parent has to be an already added element, only the first element is the root.");
+
+        ensureCapacity();
+
+        int element = size++;
+        int nameSymbol = getSymbol(name);
+
+        indexes[element] = nextIndex++;
+        parents[element] = parent;
+        firstChildren[element] = NONE;
+        lastChildren[element] = NONE;
+        nextSiblings[element] = NONE;
+        nextSiblingsOfTheSameType[element] = NONE;
+        names[element] = nameSymbol;
+        simpleXPaths[element] = parent == NONE ? getSymbol("/" + name) : getChildSimpleXPath(parent, nameSymbol);
+        valuesLengths[element] = NONE;
+        attributesOffsets[element] = attributesCount;
+
+        if (parent != NONE) {
+            if (lastChildren[parent] == NONE) {
+                firstChildren[parent] = element;
+            } else {
+                nextSiblings[lastChildren[parent]] = element;
+            }
+
+            lastChildren[parent] = element;
+        }
+
+        return element;
+    }
+
+    private int getChildSimpleXPath(int parent, int nameSymbol) {
+        return childrenSimpleXPaths.computeIfAbsent(
+                (long) simpleXPaths[parent] << Integer.SIZE | nameSymbol,
+                key -> getSymbol(symbols.get(simpleXPaths[parent]) + "/" + symbols.get(nameSymbol)));
+    }
+
+    private int getSymbol(String string) {
+        return symbolIds.computeIfAbsent(string, key -> {
+            symbols.add(key);
+            return symbols.size() - 1;
+        });
+    }
+
+    private void ensureCapacity() {
+        if (size < indexes.length) {
+            return;
+        }
+
+        int capacity = indexes.length * 2;
+
+        indexes = Arrays.copyOf(indexes, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        lastChildren = Arrays.copyOf(lastChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        nextSiblingsOfTheSameType = Arrays.copyOf(nextSiblingsOfTheSameType, capacity);
+        names = Arrays.copyOf(names, capacity);
+        simpleXPaths = Arrays.copyOf(simpleXPaths, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        valuesOffsets = Arrays.copyOf(valuesOffsets, capacity);
+        valuesLengths = Arrays.copyOf(valuesLengths, capacity);
+        attributesOffsets = Arrays.copyOf(attributesOffsets, capacity);
+        subtreeHashes = Arrays.copyOf(subtreeHashes, capacity);
+    }
+
+    /**
+     * Adds attribute to the last added element, keeping attributes of each element sorted by their names.
+     */
+    public void addAttribute(String name, String value) {
+        Preconditions.checkState(!completed, "Cannot add attribute to completed tree.");
+        Preconditions.checkState(size > 0, "Attribute has to be added to an element.");
+
+        if (name == null) {
+            return;
+        }
+
+        int attribute = findAttribute(size - 1, name);
+
+        if (attribute < 0) {
+            attribute = -attribute - 1;
+            ensureAttributesCapacity();
+
+            System.arraycopy(attributesNames, attribute, attributesNames, attribute + 1, attributesCount - attribute);
+            System.arraycopy(attributesValuesOffsets, attribute,
+                    attributesValuesOffsets, attribute + 1, attributesCount - attribute);
+            System.arraycopy(attributesValuesLengths, attribute,
+                    attributesValuesLengths, attribute + 1, attributesCount - attribute);
+
+            attributesNames[attribute] = getSymbol(name);
+            attributesCount++;
+            nextIndex++;
+        }
+
+        String normalizedValue = Node.normalizeString(value);
+
+        attributesValuesOffsets[attribute] = valuesBuffer.length();
+        attributesValuesLengths[attribute] = appendValue(normalizedValue);
+    }
+
+    private void ensureAttributesCapacity() {
+        if (attributesCount < attributesNames.length) {
+            return;
+        }
+
+        int capacity = attributesNames.length * 2;
+
+        attributesNames = Arrays.copyOf(attributesNames, capacity);
+        attributesValuesOffsets = Arrays.copyOf(attributesValuesOffsets, capacity);
+        attributesValuesLengths = Arrays.copyOf(attributesValuesLengths, capacity);
+    }
+
+    public void setValue(int element, String value) {
+        Preconditions.checkState(!completed, "Cannot set value in completed tree.");
+
+        valuesOffsets[element] = valuesBuffer.length();
+        valuesLengths[element] = appendValue(value);
+    }
+
+    private int appendValue(String value) {
+        if (value == null) {
+            return NONE;
+        }
+
+        valuesBuffer.append(value);
+
+        return value.length();
+    }
+
+    /**
+     * Links siblings of the same type, resolves their positions and trims arrays to the number of elements.
+     * The {@code [1]} predicate is added only to elements having a sibling of the same type, as in {@link Node}
+     * trees.
+     *
+     * @return root Node
+     */
+    public Node complete() {
+        Preconditions.checkState(!completed, "Tree has been already completed.");
+        Preconditions.checkState(size > 0, "Tree has no elements.");
+
+        Map<Integer, Integer> lastChildrenByName = Maps.newHashMap();
+
+        for (int parent = 0; parent < size; parent++) {
+            if (firstChildren[parent] != NONE && nextSiblings[firstChildren[parent]] != NONE) {
+                linkChildrenOfTheSameType(parent, lastChildrenByName);
+                lastChildrenByName.clear();
+            }
+        }
+
+        indexes = Arrays.copyOf(indexes, size);
+        parents = Arrays.copyOf(parents, size);
+        firstChildren = Arrays.copyOf(firstChildren, size);
+        lastChildren = null;
+        nextSiblings = Arrays.copyOf(nextSiblings, size);
+        nextSiblingsOfTheSameType = Arrays.copyOf(nextSiblingsOfTheSameType, size);
+        names = Arrays.copyOf(names, size);
+        simpleXPaths = Arrays.copyOf(simpleXPaths, size);
+        positions = Arrays.copyOf(positions, size);
+        valuesOffsets = Arrays.copyOf(valuesOffsets, size);
+        valuesLengths = Arrays.copyOf(valuesLengths, size);
+        attributesOffsets = Arrays.copyOf(attributesOffsets, size);
+        subtreeHashes = Arrays.copyOf(subtreeHashes, size);
+        attributesNames = Arrays.copyOf(attributesNames, attributesCount);
+        attributesValuesOffsets = Arrays.copyOf(attributesValuesOffsets, attributesCount);
+        attributesValuesLengths = Arrays.copyOf(attributesValuesLengths, attributesCount);
+        values = new char[valuesBuffer.length()];
+        valuesBuffer.getChars(0, values.length, values, 0);
+        valuesBuffer.setLength(0);
+        valuesBuffer.trimToSize();
+        completed = true;
+
+        return getNode(0);
+    }
+
+    private void linkChildrenOfTheSameType(int parent, Map<Integer, Integer> lastChildrenByName) {
+        for (int child = firstChildren[parent]; child != NONE; child = nextSiblings[child]) {
+            Integer previousSibling = lastChildrenByName.put(names[child], child);
+
+            if (previousSibling != null) {
+                nextSiblingsOfTheSameType[previousSibling] = child;
+
+                if (positions[previousSibling] == 0) {
+                    positions[previousSibling] = 1;
+                }
+
+                positions[child] = positions[previousSibling] + 1;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    Node getNode(int element) {
+        return element == NONE ? null : new ColumnarNode(this, element);
+    }
+
+    int getIndex(int element) {
+        return indexes[element];
+    }
+
+    int getParent(int element) {
+        return parents[element];
+    }
+
+    int getFirstChild(int element) {
+        return firstChildren[element];
+    }
+
+    int getNextSibling(int element) {
+        return nextSiblings[element];
+    }
+
+    int getNextSiblingOfTheSameType(int element) {
+        return nextSiblingsOfTheSameType[element];
+    }
+
+    String getName(int element) {
+        return symbols.get(names[element]);
+    }
+
+    int getPosition(int element) {
+        return positions[element];
+    }
+
+    String getSimpleXPath(int element) {
+        return symbols.get(simpleXPaths[element]);
+    }
+
+    int getSimpleXPathSymbol(int element) {
+        return simpleXPaths[element];
+    }
+
+    /**
+     * @return symbol of given simple XPath or {@link #NONE} if no element of this tree has it
+     */
+    int findSimpleXPathSymbol(String simpleXPath) {
+        return symbolIds.getOrDefault(simpleXPath, NONE);
+    }
+
+    /**
+     * Hash code of the XPath of given element, computed from its simple XPath and positions of its ancestors
+     * without building the XPath.
+     */
+    int getXPathHashCode(int element) {
+        int hashCode = getSimpleXPath(element).hashCode();
+
+        for (int ancestor = element; ancestor != NONE; ancestor = parents[ancestor]) {
+            hashCode = 31 * hashCode + positions[ancestor];
+        }
+
+        return hashCode;
+    }
+
+    /**
+     * Checks if elements of this and other tree have equal XPaths, which is when their simple XPaths are equal
+     * and so are positions of their ancestors, without building the XPaths.
+     */
+    boolean hasEqualXPath(int element, ColumnarTree otherTree, int otherElement) {
+        if (!getSimpleXPath(element).equals(otherTree.getSimpleXPath(otherElement))) {
+            return false;
+        }
+
+        for (; element != NONE; element = parents[element], otherElement = otherTree.parents[otherElement]) {
+            if (positions[element] != otherTree.positions[otherElement]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Ancestors are collected first, so that XPaths of deeply nested elements do not need deep recursion.
+     */
+    String getXPath(int element) {
+        int depth = 0;
+
+        for (int ancestor = element; ancestor != NONE; ancestor = parents[ancestor]) {
+            depth++;
+        }
+
+        int[] path = new int[depth];
+
+        for (int ancestor = element; ancestor != NONE; ancestor = parents[ancestor]) {
+            path[--depth] = ancestor;
+        }
+
+        StringBuilder xPath = new StringBuilder();
+
+        for (int pathElement : path) {
+            xPath.append('/').append(getName(pathElement));
+
+            if (positions[pathElement] > 0) {
+                xPath.append('[').append(positions[pathElement]).append(']');
+            }
+        }
+
+        return xPath.toString();
+    }
+
+    String getValue(int element) {
+        return getString(valuesOffsets[element], valuesLengths[element]);
+    }
+
+    private String getString(int offset, int length) {
+        return length == NONE ? null : new String(values, offset, length);
+    }
+
+    long getSubtreeHash(int element) {
+        return subtreeHashes[element];
+    }
+
+    void setSubtreeHash(int element, long subtreeHash) {
+        Preconditions.checkState(!frozen, "Cannot change frozen Node.");
+
+        subtreeHashes[element] = subtreeHash;
+    }
+
+    int getAttributesOffset(int element) {
+        return attributesOffsets[element];
+    }
+
+    int getAttributesEnd(int element) {
+        return element + 1 < size ? attributesOffsets[element + 1] : attributesCount;
+    }
+
+    String getAttributeName(int attribute) {
+        return symbols.get(attributesNames[attribute]);
+    }
+
+    String getAttributeValue(int attribute) {
+        return getString(attributesValuesOffsets[attribute], attributesValuesLengths[attribute]);
+    }
+
+    /**
+     * Binary search of attribute by its name among attributes of given element.
+     *
+     * @return number of the attribute or {@code -(insertion point) - 1} if the element has no such attribute
+     */
+    int findAttribute(int element, String name) {
+        int low = getAttributesOffset(element);
+        int high = getAttributesEnd(element) - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = getAttributeName(middle).compareTo(name);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    void freeze() {
+        frozen = true;
+    }
+
+    boolean isFrozen() {
+        return frozen;
+    }
+}
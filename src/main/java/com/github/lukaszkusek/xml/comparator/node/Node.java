@@ -23,30 +23,60 @@
 
 package com.github.lukaszkusek.xml.comparator.node;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
 import com.google.common.collect.FluentIterable;
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 
+/**
+ * Element of a document. Attributes are kept in arrays sorted by their names and children in arrays of children
+ * of the same type, sorted by their simple XPaths, each in the order the children were added, which is document
+ * order for parsed documents. Nodes without attributes or children share empty arrays, so leaves do not allocate
+ * anything but the Node itself.
+ * <p>
+ * Children added while building the tree are grouped on first read. A Node is {@link #freeze() frozen}
+ * once its document is complete, after which it cannot be changed and can be read by many threads.
+ */
 public class Node implements INode {
 
+    private static final String[] NO_STRINGS = new String[0];
+    private static final Node[][] NO_CHILDREN = new Node[0][];
+
     private int index;
     private String xPath;
     private String simpleXPath;
     private String name;
+    private int position;
     private Node parent;
     private String value;
-    private Map<String, String> attributes;
-    private Multimap<String, Node> children;
+    private String[] attributesNames;
+    private String[] attributesValues;
+    private String[] childrenXPaths;
+    private Node[][] children;
+    private Map<String, List<Node>> childrenToGroup;
+    private long subtreeHash;
+    private boolean frozen;
 
     public Node(int index, String xPath) {
         Preconditions.checkArgument(xPath != null, "Xpath cannot be null.");
@@ -55,20 +85,54 @@ public class Node implements INode {
         this.xPath = xPath;
         this.simpleXPath = convertToSimpleXPath(xPath);
         this.name = extractName(this.xPath);
-        this.attributes = Maps.newHashMap();
-        this.children = HashMultimap.create();
+        this.attributesNames = NO_STRINGS;
+        this.attributesValues = NO_STRINGS;
+        this.childrenXPaths = NO_STRINGS;
+        this.children = NO_CHILDREN;
+    }
+
+    /**
+     * Creates a Node which XPath is resolved from its parent, name and position on first access,
+     * so {@link #setPosition(int)} can still be called after the Node has been created.
+     */
+    public Node(int index, String name, Node parent) {
+        Preconditions.checkArgument(name != null, "Name cannot be null.");
+
+        this.index = index;
+        this.name = name;
+        this.parent = parent;
+        this.attributesNames = NO_STRINGS;
+        this.attributesValues = NO_STRINGS;
+        this.childrenXPaths = NO_STRINGS;
+        this.children = NO_CHILDREN;
     }
 
+    /**
+     * Creates a frozen copy sharing attributes and children of given Node.
+     */
     protected Node(Node node) {
-        this.index = node.index;
-        this.xPath = node.xPath;
-        this.simpleXPath = node.simpleXPath;
-        this.name = node.name;
-        this.attributes = node.attributes;
-        this.children = node.children;
+        Node source = node.compact();
+
+        this.index = source.index;
+        this.xPath = source.getXPath();
+        this.simpleXPath = source.getSimpleXPath();
+        this.name = source.name;
+        this.position = source.position;
+        this.subtreeHash = source.subtreeHash;
+        this.attributesNames = source.attributesNames;
+        this.attributesValues = source.attributesValues;
+        this.childrenXPaths = source.childrenXPaths;
+        this.children = source.children;
+        this.frozen = true;
     }
 
-    private String extractName(String xpath) {
+    /**
+     * Creates a Node which does not keep any data itself and overrides all accessors, see {@link ColumnarNode}.
+     */
+    Node() {
+    }
+
+    private static String extractName(String xpath) {
         return FluentIterable.from(Splitter.on("/").split(xpath)).last().get();
     }
 
@@ -76,28 +140,156 @@ public class Node implements INode {
         return xpath.replaceAll("\\[[0-9]+\\]", "");
     }
 
+    private void checkNotFrozen() {
+        Preconditions.checkState(!frozen, "Cannot change frozen Node.");
+    }
+
     public void setParent(Node parent) {
+        checkNotFrozen();
+
         this.parent = parent;
     }
 
+    public void setPosition(int position) {
+        checkNotFrozen();
+        Preconditions.checkState(xPath == null, "Cannot change position of Node with already resolved XPath.");
+
+        this.position = position;
+    }
+
+    public void setSubtreeHash(long subtreeHash) {
+        checkNotFrozen();
+
+        this.subtreeHash = subtreeHash;
+    }
+
     public void setValue(String value) {
+        checkNotFrozen();
+
         this.value = value;
     }
 
     public void putAttribute(String key, String value) {
-        if (key != null) {
-            attributes.put(key, normalizeString(value));
+        checkNotFrozen();
+
+        if (key == null) {
+            return;
+        }
+
+        int attributeIndex = Arrays.binarySearch(attributesNames, key);
+
+        if (attributeIndex >= 0) {
+            attributesValues[attributeIndex] = normalizeString(value);
+        } else {
+            attributesNames = insert(attributesNames, -attributeIndex - 1, key);
+            attributesValues = insert(attributesValues, -attributeIndex - 1, normalizeString(value));
         }
     }
 
-    private static String normalizeString(String value) {
+    private static String[] insert(String[] array, int index, String element) {
+        String[] extendedArray = new String[array.length + 1];
+
+        System.arraycopy(array, 0, extendedArray, 0, index);
+        extendedArray[index] = element;
+        System.arraycopy(array, index, extendedArray, index + 1, array.length - index);
+
+        return extendedArray;
+    }
+
+    static String normalizeString(String value) {
         return Optional.ofNullable(value)
                 .map(string -> string.trim().replaceAll("\\s+", " "))
                 .orElse(null);
     }
 
     public void addChild(String xpath, Node child) {
-        children.put(convertToSimpleXPath(xpath), child);
+        addChildWithSimpleXPath(convertToSimpleXPath(xpath), child);
+    }
+
+    public void addChild(Node child) {
+        addChildWithSimpleXPath(child.getSimpleXPath(), child);
+    }
+
+    private void addChildWithSimpleXPath(String childrenXPath, Node child) {
+        checkNotFrozen();
+
+        if (childrenToGroup == null) {
+            childrenToGroup = Maps.newHashMap();
+        }
+
+        childrenToGroup.computeIfAbsent(childrenXPath, key -> Lists.newArrayList()).add(child);
+    }
+
+    /**
+     * Merges children added since the last grouping into arrays, after the children grouped before, keeping
+     * the order in which they were added. Children grouped together share the same simple XPath instance.
+     */
+    private void groupChildren() {
+        if (childrenToGroup == null) {
+            return;
+        }
+
+        for (int i = 0; i < childrenXPaths.length; i++) {
+            List<Node> childrenOfTheSameType = Lists.newArrayList(children[i]);
+            childrenOfTheSameType.addAll(childrenToGroup.getOrDefault(childrenXPaths[i], Collections.emptyList()));
+            childrenToGroup.put(childrenXPaths[i], childrenOfTheSameType);
+        }
+
+        String[] groupedChildrenXPaths = childrenToGroup.keySet().toArray(new String[0]);
+        Node[][] groupedChildren = new Node[groupedChildrenXPaths.length][];
+
+        Arrays.sort(groupedChildrenXPaths);
+
+        for (int i = 0; i < groupedChildrenXPaths.length; i++) {
+            String childrenXPath = groupedChildrenXPaths[i];
+
+            groupedChildren[i] = childrenToGroup.get(childrenXPath).toArray(new Node[0]);
+
+            for (Node child : groupedChildren[i]) {
+                if (childrenXPath.equals(child.simpleXPath)) {
+                    child.simpleXPath = childrenXPath;
+                }
+            }
+        }
+
+        childrenXPaths = groupedChildrenXPaths;
+        children = groupedChildren;
+        childrenToGroup = null;
+    }
+
+    /**
+     * Node keeping its attributes and children in its own arrays, equal to this Node.
+     */
+    Node compact() {
+        groupChildren();
+
+        return this;
+    }
+
+    /**
+     * Prevents further changes of this Node and all its descendants and groups their children,
+     * so that they can be read by many threads.
+     */
+    public void freeze() {
+        Deque<Node> nodesToFreeze = new ArrayDeque<>();
+        nodesToFreeze.push(this);
+
+        while (!nodesToFreeze.isEmpty()) {
+            Node node = nodesToFreeze.pop();
+
+            node.groupChildren();
+            node.frozen = true;
+
+            for (Node[] childrenOfTheSameType : node.children) {
+                for (Node child : childrenOfTheSameType) {
+                    nodesToFreeze.push(child);
+                }
+            }
+        }
+    }
+
+    public boolean isFrozen() {
+        return frozen;
     }
 
     public int getIndex() {
@@ -105,15 +297,35 @@ public class Node implements INode {
     }
 
     public String getXPath() {
+        if (xPath == null) {
+            xPath = getParentXPath(Node::getXPath) + "/" + getName();
+        }
+
         return xPath;
     }
 
     public String getSimpleXPath() {
+        if (simpleXPath == null) {
+            simpleXPath = getParentXPath(Node::getSimpleXPath) + "/" + name;
+        }
+
         return simpleXPath;
     }
 
+    private String getParentXPath(Function<Node, String> xPathExtractor) {
+        return parent == null ? "" : xPathExtractor.apply(parent);
+    }
+
+    private String getPositionPredicate() {
+        return position > 0 ? "[" + position + "]" : "";
+    }
+
     public String getName() {
-        return name;
+        return name + getPositionPredicate();
+    }
+
+    public int getPosition() {
+        return position;
     }
 
     public Node getParent() {
@@ -124,12 +336,34 @@ public class Node implements INode {
         return value;
     }
 
+    /**
+     * Hash of values, attributes and children of this Node and all its descendants.
+     * Equal hashes mean that there are no differences between compared subtrees.
+     */
+    public long getSubtreeHash() {
+        return subtreeHash;
+    }
+
+    /**
+     * Read-only view of attributes.
+     */
     public Map<String, String> getAttributes() {
-        return attributes;
+        return new AttributesView();
     }
 
+    /**
+     * Copy of children grouped by their simple XPaths.
+     */
     public Multimap<String, Node> getChildren() {
-        return children;
+        groupChildren();
+
+        ImmutableListMultimap.Builder<String, Node> childrenBuilder = ImmutableListMultimap.builder();
+
+        for (int i = 0; i < childrenXPaths.length; i++) {
+            childrenBuilder.putAll(childrenXPaths[i], children[i]);
+        }
+
+        return childrenBuilder.build();
     }
 
     boolean hasValue() {
@@ -143,7 +377,7 @@ public class Node implements INode {
             setValue(node.getValue());
         }
 
-        getAttributes().putAll(node.getAttributes());
+        node.getAttributes().forEach(this::putAttribute);
 
         return this;
     }
@@ -161,7 +395,9 @@ public class Node implements INode {
     }
 
     public String getAttribute(String attributeName) {
-        return getAttributes().get(attributeName);
+        int attributeIndex = attributeName == null ? -1 : Arrays.binarySearch(attributesNames, attributeName);
+
+        return attributeIndex < 0 ? null : attributesValues[attributeIndex];
     }
 
     public String extractAttributeValue(String attributeName, Pattern pattern) {
@@ -177,15 +413,26 @@ public class Node implements INode {
     }
 
     public Set<String> getAttributesNames() {
-        return getAttributes().keySet();
+        return new SortedArraySet(attributesNames);
     }
 
     public Set<String> getChildrenXPaths() {
-        return getChildren().keySet();
+        groupChildren();
+
+        return new SortedArraySet(childrenXPaths);
     }
 
+    /**
+     * Children with given simple XPath in the order they were added.
+     */
     public Collection<Node> getChildren(String childrenXPath) {
-        return getChildren().get(childrenXPath);
+        groupChildren();
+
+        int childrenIndex = Arrays.binarySearch(childrenXPaths, childrenXPath);
+
+        return childrenIndex < 0
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.asList(children[childrenIndex]));
     }
 
     @Override
@@ -204,11 +451,69 @@ public class Node implements INode {
 
         Node node = (Node) o;
 
-        return xPath.equals(node.xPath);
+        return getXPath().equals(node.getXPath());
     }
 
     @Override
     public int hashCode() {
-        return xPath.hashCode();
+        return getXPath().hashCode();
+    }
+
+    private static class SortedArraySet extends AbstractSet<String> {
+
+        private final String[] elements;
+
+        private SortedArraySet(String[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public boolean contains(Object element) {
+            return element instanceof String && Arrays.binarySearch(elements, element) >= 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return Iterators.forArray(elements);
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+    }
+
+    private class AttributesView extends AbstractMap<String, String> {
+
+        @Override
+        public String get(Object attributeName) {
+            return attributeName instanceof String ? getAttribute((String) attributeName) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object attributeName) {
+            return attributeName instanceof String && Arrays.binarySearch(attributesNames, attributeName) >= 0;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            String[] names = attributesNames;
+            String[] values = attributesValues;
+
+            return new AbstractSet<Entry<String, String>>() {
+
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return IntStream.range(0, names.length)
+                            .mapToObj(i -> Maps.immutableEntry(names[i], values[i]))
+                            .iterator();
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
     }
 }
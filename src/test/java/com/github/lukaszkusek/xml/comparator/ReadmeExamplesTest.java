@@ -28,6 +28,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import javax.xml.transform.TransformerException;
 import java.io.IOException;
 
+import com.github.lukaszkusek.xml.comparator.comparators.children.MatchingStrategy;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceCode;
 import com.github.lukaszkusek.xml.comparator.diff.DifferenceInformation;
 import com.github.lukaszkusek.xml.comparator.diff.XMLDiff;
 import com.github.lukaszkusek.xml.comparator.util.ResourceReader;
@@ -145,6 +147,93 @@ public class ReadmeExamplesTest {
         assertThat(xmlDiff.getDifferencesCount()).isEqualTo(0);
     }
 
+    @Test
+    public void identityKeysExample() throws IOException, TransformerException {
+        // given
+        String xml1 = ResourceReader.getFileContent("Readme/identityKeys1.xml");
+        String xml2 = ResourceReader.getFileContent("Readme/identityKeys2.xml");
+
+        // when
+        XMLDiff xmlDiff = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .identityKeys(ImmutableMap.of("/order/line", "@id"))
+                .compare();
+
+        // then
+        assertThat(xmlDiff.getDifferencesCount()).isEqualTo(4);
+        assertThat(xmlDiff.getDifferenceInformationSet())
+                .extracting(DifferenceInformation::getDifferenceCode)
+                .containsOnly(
+                        DifferenceCode.DIFFERENT_ATTRIBUTE_VALUE,
+                        DifferenceCode.MISSING_ELEMENT_IN_SECOND_DOCUMENT,
+                        DifferenceCode.MISSING_ELEMENT_IN_FIRST_DOCUMENT);
+        assertThat(XMLComparator.compare(xml1, xml2).getDifferencesCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void blockingKeysExample() throws IOException, TransformerException {
+        // given
+        String xml1 = ResourceReader.getFileContent("Readme/blockingKeys1.xml");
+        String xml2 = ResourceReader.getFileContent("Readme/blockingKeys2.xml");
+        XMLComparator xmlComparator = XMLComparator.builder()
+                .blockingKeys(ImmutableMap.of("/catalog/product", "@category"))
+                .largeGroupSize(2)
+                .build();
+
+        // when
+        XMLDiff xmlDiff = xmlComparator.diff(xml1, xml2);
+
+        // then
+        assertThat(xmlDiff.getDifferencesCount()).isEqualTo(2);
+        assertThat(xmlDiff.getDifferenceInformationSet())
+                .extracting(DifferenceInformation::getDifferenceCode)
+                .containsOnly(DifferenceCode.DIFFERENT_ATTRIBUTE_VALUE);
+        assertThat(xmlComparator.getMatchingStatistics().getCount(MatchingStrategy.BLOCKING)).isEqualTo(1);
+    }
+
+    @Test
+    public void orderedXPathsExample() throws IOException, TransformerException {
+        // given
+        String xml1 = ResourceReader.getFileContent("Readme/orderedXPaths1.xml");
+        String xml2 = ResourceReader.getFileContent("Readme/orderedXPaths2.xml");
+
+        // when
+        XMLDiff xmlDiff = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .orderedXPaths(ImmutableSet.of("/process/step"))
+                .compare();
+
+        // then
+        assertThat(xmlDiff.getDifferencesCount()).isEqualTo(2);
+        assertThat(xmlDiff.getDifferenceInformationSet())
+                .extracting(DifferenceInformation::getDifferenceCode)
+                .containsOnly(
+                        DifferenceCode.MISSING_ELEMENT_IN_SECOND_DOCUMENT,
+                        DifferenceCode.MISSING_ELEMENT_IN_FIRST_DOCUMENT);
+        assertThat(XMLComparator.compare(xml1, xml2).getDifferencesCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void positionalXPathsExample() throws IOException, TransformerException {
+        // given
+        String xml1 = ResourceReader.getFileContent("Readme/positionalXPaths1.xml");
+        String xml2 = ResourceReader.getFileContent("Readme/positionalXPaths2.xml");
+
+        // when
+        XMLDiff xmlDiff = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .positionalXPaths(ImmutableSet.of("/feed/record"))
+                .compare();
+
+        // then
+        assertThat(xmlDiff.getXPaths())
+                .containsOnly("/feed/record[1]/text()", "/feed/record[2]/text()", "/feed/record[3]");
+        assertThat(XMLComparator.compare(xml1, xml2).getXPaths()).containsOnly("/feed/record[3]");
+    }
+
     @Test
     public void uniqueDifferenceInformationExample() throws IOException, TransformerException {
         // given
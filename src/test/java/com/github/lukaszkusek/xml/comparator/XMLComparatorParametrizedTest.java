@@ -32,8 +32,10 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
 import com.github.lukaszkusek.xml.comparator.diff.DifferenceInformation;
 import com.github.lukaszkusek.xml.comparator.diff.XMLDiff;
+import com.github.lukaszkusek.xml.comparator.node.Node;
 import com.github.lukaszkusek.xml.comparator.util.ResourceReader;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -177,6 +179,24 @@ public class XMLComparatorParametrizedTest {
         assertThat(diff.getDifferenceInformationSet()).hasSize(expectedDifferenceDetailsSize);
     }
 
+    @Test
+    public void shouldCountDifferencesUpToBound() throws TransformerException, IOException {
+        // given
+        XMLComparator xmlComparator = XMLComparator.builder().build();
+        Node rootNode1 = xmlComparator.parse(xml1).getRootNode();
+        Node rootNode2 = xmlComparator.parse(xml2).getRootNode();
+        ComparisonContext context = new ComparisonContext(true);
+        int differencesCount = xmlComparator.countDifferences(rootNode1, rootNode2, context);
+
+        for (int bound = 1; bound <= differencesCount + 1; bound++) {
+            // when
+            int boundedDifferencesCount = xmlComparator.countDifferences(rootNode1, rootNode2, context, bound);
+
+            // then
+            assertThat(boundedDifferencesCount).isEqualTo(Math.min(differencesCount, bound));
+        }
+    }
+
     @Test
     public void shouldFilterXPaths() throws TransformerException, IOException, SAXException {
         // given
@@ -24,14 +24,31 @@
 package com.github.lukaszkusek.xml.comparator;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import javax.xml.transform.TransformerException;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
+import com.github.lukaszkusek.xml.comparator.comparators.children.MatchingStatistics;
+import com.github.lukaszkusek.xml.comparator.comparators.children.MatchingStrategy;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.JonkerVolgenantMinimumCostAssignmentCalculator;
+import com.github.lukaszkusek.xml.comparator.diff.DifferenceInformation;
 import com.github.lukaszkusek.xml.comparator.diff.XMLDiff;
 import com.github.lukaszkusek.xml.comparator.document.XMLDocument;
 import com.github.lukaszkusek.xml.comparator.util.ResourceReader;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.junit.Test;
 
 public class XMLComparatorTest {
@@ -135,6 +152,25 @@ public class XMLComparatorTest {
         assertThat(diff.getDifferencesCount()).isEqualTo(0);
     }
 
+    @Test
+    public void shouldNotSkipSubtreesHashedWithDifferentValueExtractors() throws TransformerException, IOException {
+        // given
+        XMLDocument xml1 = XMLDocument.fromXML(
+                ResourceReader.getFileContent("withTimestamp1.xml"),
+                true,
+                ImmutableMap.of("/Response/Error", Pattern.compile("[^:]*:(.*)")));
+        XMLDocument xml2 = XMLDocument.fromXML(
+                ResourceReader.getFileContent("withTimestamp2.xml"),
+                true,
+                ImmutableMap.of("/Response/Error", Pattern.compile("[^:]*:(.*)")));
+
+        // when
+        XMLDiff diff = XMLComparator.compare(xml1, xml2);
+
+        // then
+        assertThat(diff.getXPaths()).containsOnly("/Response/Error/text()");
+    }
+
     @Test
     public void shouldCompareXMLs() throws TransformerException, IOException {
         // given
@@ -162,6 +198,317 @@ public class XMLComparatorTest {
                 );
     }
 
+    @Test
+    public void shouldCompareXMLsUsingJonkerVolgenantAlgorithm() throws TransformerException, IOException {
+        // given
+        String xml1 = ResourceReader.getFileContent("toCompare1.xml");
+        String xml2 = ResourceReader.getFileContent("toCompare2.xml");
+
+        // when
+        XMLDiff diff = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .minimumCostAssignmentCalculator(new JonkerVolgenantMinimumCostAssignmentCalculator())
+                .compare();
+
+        // then
+        assertThat(diff.getDifferencesCount()).isEqualTo(11);
+        assertThat(diff.getXPaths()).isEqualTo(XMLComparator.compare(xml1, xml2).getXPaths());
+    }
+
+    @Test
+    public void shouldReuseBuiltComparatorInManyThreads() throws Exception {
+        // given
+        XMLComparator xmlComparator = XMLComparator.builder().build();
+        XMLDocument xmlDocument1 = XMLDocument.fromXML(ResourceReader.getFileContent("toCompare1.xml"));
+        XMLDocument xmlDocument2 = XMLDocument.fromXML(ResourceReader.getFileContent("toCompare2.xml"));
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        // when
+        List<Future<XMLDiff>> diffs = executorService.invokeAll(
+                Collections.nCopies(20, () -> xmlComparator.diff(xmlDocument1, xmlDocument2)));
+        executorService.shutdown();
+
+        // then
+        for (Future<XMLDiff> diff : diffs) {
+            assertThat(diff.get().getDifferencesCount()).isEqualTo(11);
+        }
+    }
+
+    @Test
+    public void shouldCompareBaselineWithManyCandidates() throws TransformerException, IOException {
+        // given
+        XMLComparator xmlComparator = XMLComparator.builder().parallelism(2).build();
+        XMLDocument baseline = xmlComparator.parse(ResourceReader.getFileContent("toCompare1.xml"));
+        String candidate1 = ResourceReader.getFileContent("toCompare1.xml");
+        String candidate2 = ResourceReader.getFileContent("toCompare2.xml");
+
+        // when
+        List<XMLDiff> diffs = xmlComparator.diffAll(baseline, ImmutableList.of(candidate1, candidate2, candidate1));
+        xmlComparator.close();
+
+        // then
+        assertThat(diffs).extracting(XMLDiff::getDifferencesCount).containsExactly(0, 11, 0);
+        assertThat(diffs).extracting(XMLDiff::getXmlDocument1).containsOnly(baseline);
+    }
+
+    @Test
+    public void shouldReadCandidatesOnlyAsFastAsDiffsAreConsumed() throws TransformerException, IOException {
+        // given
+        int parallelism = 2;
+        XMLComparator xmlComparator = XMLComparator.builder().parallelism(parallelism).build();
+        XMLDocument baseline = xmlComparator.parse(ResourceReader.getFileContent("toCompare1.xml"));
+        String candidate = ResourceReader.getFileContent("toCompare2.xml");
+        AtomicInteger readCandidatesCount = new AtomicInteger();
+        Iterable<String> candidates = Iterables.transform(Collections.nCopies(10, candidate), xml -> {
+            readCandidatesCount.incrementAndGet();
+            return xml;
+        });
+        List<Integer> readAheadCandidatesCounts = Lists.newArrayList();
+
+        // when
+        xmlComparator.diffAll(baseline, candidates, (diff, candidateIndex) ->
+                readAheadCandidatesCounts.add(readCandidatesCount.get() - candidateIndex));
+        xmlComparator.close();
+
+        // then
+        assertThat(readAheadCandidatesCounts).hasSize(10);
+        assertThat(readAheadCandidatesCounts).allMatch(readAheadCount -> readAheadCount <= parallelism);
+    }
+
+    @Test
+    public void shouldRecordMatchingStrategies() throws TransformerException, IOException {
+        // given
+        XMLComparator xmlComparator = XMLComparator.builder().largeGroupSize(2).build();
+        String xml1 = ResourceReader.getFileContent("toCompare1.xml");
+        String xml2 = ResourceReader.getFileContent("toCompare2.xml");
+
+        // when
+        XMLDiff diff = xmlComparator.diff(xml1, xml2);
+
+        // then
+        MatchingStatistics matchingStatistics = xmlComparator.getMatchingStatistics();
+
+        assertThat(diff.getDifferencesCount()).isEqualTo(11);
+        assertThat(matchingStatistics.getCount(MatchingStrategy.LARGE_GROUP_ASSIGNMENT)).isPositive();
+        assertThat(matchingStatistics.getCount(MatchingStrategy.SINGLE_PAIR)).isPositive();
+        assertThat(matchingStatistics.getCount(MatchingStrategy.POSITIONAL)).isZero();
+    }
+
+    @Test
+    public void shouldPassDifferencesToListener() throws TransformerException, IOException {
+        // given
+        String xml1 = ResourceReader.getFileContent("toCompare1.xml");
+        String xml2 = ResourceReader.getFileContent("toCompare2.xml");
+        List<DifferenceInformation> differences = Lists.newArrayList();
+
+        // when
+        XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .compare(differences::add);
+
+        // then
+        assertThat(differences).hasSize(11);
+        assertThat(differences).containsOnlyElementsOf(XMLComparator.compare(xml1, xml2).getDifferenceInformationSet());
+    }
+
+    @Test
+    public void shouldCheckIfXMLsAreEquivalent() throws TransformerException, IOException {
+        // given
+        XMLComparator xmlComparator = XMLComparator.builder().build();
+        String xml = "<xml><element value=\"abc\"/><element value=\"def\"/></xml>";
+        String reorderedXml = "<xml><element value=\"def\"/><element value=\"abc\"/></xml>";
+        String changedXml = "<xml><element value=\"ghi\"/><element value=\"abc\"/></xml>";
+
+        // when
+        boolean reorderedEquivalent =
+                xmlComparator.isEquivalent(xmlComparator.parse(xml), xmlComparator.parse(reorderedXml));
+        boolean changedEquivalent =
+                xmlComparator.isEquivalent(xmlComparator.parse(xml), xmlComparator.parse(changedXml));
+
+        // then
+        assertThat(reorderedEquivalent).isTrue();
+        assertThat(changedEquivalent).isFalse();
+    }
+
+    @Test
+    public void shouldCheckIfXMLsAreEquivalentOmittingXPaths() throws TransformerException, IOException {
+        // given
+        String xml1 = ResourceReader.getFileContent("XMLDiff/4-first.xml");
+        String xml2 = ResourceReader.getFileContent("XMLDiff/4-second.xml");
+
+        // when
+        boolean equivalent = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .isEquivalent();
+        boolean equivalentOmittingXPaths = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .xPathsToOmit(ImmutableSet.of("Customer/Address", "Customer/Telephone"))
+                .isEquivalent();
+
+        // then
+        assertThat(equivalent).isFalse();
+        assertThat(equivalentOmittingXPaths).isTrue();
+    }
+
+    @Test
+    public void shouldStopComparingAfterMaxDifferences() throws TransformerException, IOException {
+        // given
+        String xml1 = ResourceReader.getFileContent("toCompare1.xml");
+        String xml2 = ResourceReader.getFileContent("toCompare2.xml");
+
+        // when
+        XMLDiff truncatedDiff = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .maxDifferences(3)
+                .compare();
+        XMLDiff diff = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .maxDifferences(11)
+                .compare();
+
+        // then
+        assertThat(truncatedDiff.getDifferencesCount()).isEqualTo(3);
+        assertThat(truncatedDiff.isTruncated()).isTrue();
+        assertThat(diff.getDifferencesCount()).isEqualTo(11);
+        assertThat(diff.isTruncated()).isFalse();
+    }
+
+    @Test
+    public void shouldCompareXMLsInParallel() throws TransformerException, IOException {
+        // given
+        String xml1 = ResourceReader.getFileContent("toCompare1.xml");
+        String xml2 = ResourceReader.getFileContent("toCompare2.xml");
+
+        // when
+        XMLDiff diff = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .parallelism(4)
+                .minimumParallelGroupSize(2)
+                .compare();
+
+        // then
+        assertThat(diff.getDifferencesCount()).isEqualTo(11);
+        assertThat(diff.getXPaths()).isEqualTo(XMLComparator.compare(xml1, xml2).getXPaths());
+    }
+
+    @Test
+    public void shouldAssignLargeGroupsInBlocksInParallel() throws TransformerException, IOException {
+        // given
+        XMLComparator xmlComparator = XMLComparator.builder()
+                .blockingKeys(ImmutableMap.of(
+                        "/Response/Profiles/ProfileInfo/Profile/Customer/Telephone", "@PhoneType",
+                        "/Response/Profiles/ProfileInfo/Profile/Customer/Address", "@Type"))
+                .largeGroupSize(2)
+                .parallelism(4)
+                .minimumParallelGroupSize(2)
+                .build();
+        String xml1 = ResourceReader.getFileContent("toCompare1.xml");
+        String xml2 = ResourceReader.getFileContent("toCompare2.xml");
+
+        // when
+        XMLDiff diff = xmlComparator.diff(xml1, xml2);
+        xmlComparator.close();
+
+        // then
+        assertThat(diff.getDifferencesCount()).isEqualTo(11);
+        assertThat(diff.getXPaths()).isEqualTo(XMLComparator.compare(xml1, xml2).getXPaths());
+        assertThat(xmlComparator.getMatchingStatistics().getCount(MatchingStrategy.BLOCKING)).isPositive();
+    }
+
+    @Test
+    public void shouldRejectNonPositiveMinimumParallelGroupSize() {
+        // given
+        XMLComparatorBuilder builder = XMLComparator.builder().parallelism(2);
+
+        // when
+        // then
+        assertThatThrownBy(() -> builder.minimumParallelGroupSize(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Minimum parallel group size has to be positive.");
+    }
+
+    @Test
+    public void shouldNotCompareInParallelAfterComparatorIsClosed() throws TransformerException, IOException {
+        // given
+        XMLComparator xmlComparator = XMLComparator.builder().parallelism(2).build();
+        XMLDocument baseline = xmlComparator.parse(ResourceReader.getFileContent("toCompare1.xml"));
+        String candidate = ResourceReader.getFileContent("toCompare2.xml");
+
+        // when
+        xmlComparator.close();
+
+        // then
+        assertThatThrownBy(() -> xmlComparator.diffAll(baseline, ImmutableList.of(candidate)))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    public void shouldCompareXMLsKeepingCostsOutOfHeap() throws TransformerException, IOException {
+        // given
+        String xml1 = ResourceReader.getFileContent("toCompare1.xml");
+        String xml2 = ResourceReader.getFileContent("toCompare2.xml");
+
+        // when
+        XMLDiff diff = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .outOfCoreCellsCount(1)
+                .parallelism(2)
+                .minimumParallelGroupSize(2)
+                .compare();
+
+        // then
+        assertThat(diff.getDifferencesCount()).isEqualTo(11);
+        assertThat(diff.getXPaths()).isEqualTo(XMLComparator.compare(xml1, xml2).getXPaths());
+    }
+
+    @Test
+    public void shouldCompareColumnarDocuments() throws TransformerException, IOException {
+        // given
+        String xml1 = ResourceReader.getFileContent("toCompare1.xml");
+        String xml2 = ResourceReader.getFileContent("toCompare2.xml");
+
+        // when
+        XMLDiff diff = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .columnarDocuments(true)
+                .compare();
+
+        // then
+        XMLDiff expectedDiff = XMLComparator.compare(xml1, xml2);
+
+        assertThat(diff.getXPaths()).isEqualTo(expectedDiff.getXPaths());
+        assertThat(diff.getMessages()).isEqualTo(expectedDiff.getMessages());
+        assertThat(diff.getSimpleXPaths()).isEqualTo(expectedDiff.getSimpleXPaths());
+    }
+
+    @Test
+    public void shouldDescribeUniqueDifferencesBySimpleXPaths() throws TransformerException, IOException {
+        // given
+        String xml1 = ResourceReader.getFileContent("toCompare1.xml");
+        String xml2 = ResourceReader.getFileContent("toCompare2.xml");
+
+        // when
+        XMLDiff diff = XMLComparator.builder()
+                .first(xml1)
+                .second(xml2)
+                .columnarDocuments(true)
+                .compare();
+
+        // then
+        assertThat(diff.getUniqueDifferenceInformationSet())
+                .extracting(DifferenceInformation::getXPath)
+                .containsOnlyElementsOf(diff.getSimpleXPaths());
+    }
+
     @Test
     public void shouldReturnSourceXMLDocumentsInXMLDiff() throws TransformerException, IOException {
         // given
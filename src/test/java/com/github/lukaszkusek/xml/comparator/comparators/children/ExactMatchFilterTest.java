@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.xml.transform.TransformerException;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
+import com.github.lukaszkusek.xml.comparator.document.XMLDocument;
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.github.lukaszkusek.xml.comparator.util.NodeFactory;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+public class ExactMatchFilterTest {
+
+    private final ExactMatchFilter exactMatchFilter = new ExactMatchFilter();
+
+    @Test
+    public void shouldPairAsManyChildrenWithEqualHashesAsThereAreOnBothSidesStartingFromTheLast() {
+        // given
+        List<Node> children1 = NodeFactory.createChildren(7, 7);
+        List<Node> children2 = NodeFactory.createChildren(7, 7, 7);
+
+        // when
+        ExactMatchFilter.UnmatchedChildren unmatchedChildren =
+                exactMatchFilter.filter(children1, children2, new ComparisonContext(true));
+
+        // then
+        assertThat(unmatchedChildren.getChildren1()).isEmpty();
+        assertThat(unmatchedChildren.getChildren2()).containsExactly(children2.get(0));
+    }
+
+    @Test
+    public void shouldLeaveOnlyChildrenWithoutIdenticalCounterpart() {
+        // given
+        List<Node> children1 = NodeFactory.createChildren(1, 2, 3, 2);
+        List<Node> children2 = NodeFactory.createChildren(4, 2, 1, 5);
+
+        // when
+        ExactMatchFilter.UnmatchedChildren unmatchedChildren =
+                exactMatchFilter.filter(children1, children2, new ComparisonContext(true));
+
+        // then
+        assertThat(unmatchedChildren.getChildren1()).containsExactly(children1.get(1), children1.get(2));
+        assertThat(unmatchedChildren.getChildren2()).containsExactlyInAnyOrder(children2.get(0), children2.get(3));
+        assertThat(unmatchedChildren.isSinglePair()).isFalse();
+    }
+
+    @Test
+    public void shouldNotPairChildrenIfHashesAreNotValidForValueExtractors()
+            throws TransformerException, IOException {
+
+        // given
+        Map<String, Pattern> hashedValueExtractors = ImmutableMap.of("/xml/element", Pattern.compile("(a)"));
+        Map<String, Pattern> comparedValueExtractors = ImmutableMap.of("/xml/element", Pattern.compile("(b)"));
+        XMLDocument xmlDocument = XMLDocument.fromXML("<xml><element>a</element></xml>", true, hashedValueExtractors);
+        boolean hashesValid = xmlDocument.hasSubtreeHashesValidFor(comparedValueExtractors, ImmutableSet.of());
+
+        List<Node> children1 = NodeFactory.createChildren(1, 2);
+        List<Node> children2 = NodeFactory.createChildren(2, 1);
+
+        // when
+        ExactMatchFilter.UnmatchedChildren unmatchedChildren =
+                exactMatchFilter.filter(children1, children2, new ComparisonContext(hashesValid));
+
+        // then
+        assertThat(hashesValid).isFalse();
+        assertThat(unmatchedChildren.getChildren1()).containsExactlyElementsOf(children1);
+        assertThat(unmatchedChildren.getChildren2()).containsExactlyElementsOf(children2);
+    }
+}
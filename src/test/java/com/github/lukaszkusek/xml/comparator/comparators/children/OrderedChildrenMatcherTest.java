@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.github.lukaszkusek.xml.comparator.util.NodeFactory;
+import org.junit.Test;
+
+public class OrderedChildrenMatcherTest {
+
+    private final OrderedChildrenMatcher orderedChildrenMatcher = new OrderedChildrenMatcher();
+
+    @Test
+    public void shouldPairModifiedChildrenAndFindMissingOnes() {
+        // given
+        List<Node> children1 = NodeFactory.createChildren(0, 1, 2, 3, 4);
+        List<Node> children2 = NodeFactory.createChildren(0, 5, 2, 4, 6);
+
+        // when
+        MatchedChildren matchedChildren = orderedChildrenMatcher.match(children1, children2, this::haveEqualHashes);
+
+        // then
+        assertThat(matchedChildren.getPairs()).hasSize(1);
+        assertThat(matchedChildren.getPairs().get(0).getKey()).isSameAs(children1.get(1));
+        assertThat(matchedChildren.getPairs().get(0).getValue()).isSameAs(children2.get(1));
+        assertThat(matchedChildren.getMissingInSecondDocument()).containsExactly(children1.get(3));
+        assertThat(matchedChildren.getMissingInFirstDocument()).containsExactly(children2.get(4));
+    }
+
+    @Test
+    public void shouldFindShortestEditScript() {
+        Random random = new Random(0);
+
+        for (int test = 0; test < 500; test++) {
+            // given
+            List<Node> children1 = createRandomChildren(random, random.nextInt(40), 1 + random.nextInt(5));
+            List<Node> children2 = createRandomChildren(random, random.nextInt(40), 1 + random.nextInt(5));
+
+            // when
+            MatchedChildren matchedChildren =
+                    orderedChildrenMatcher.match(children1, children2, this::haveEqualHashes);
+
+            // then
+            int removedCount = matchedChildren.getPairs().size() + matchedChildren.getMissingInSecondDocument().size();
+            int insertedCount = matchedChildren.getPairs().size() + matchedChildren.getMissingInFirstDocument().size();
+            int longestCommonSubsequenceLength = getLongestCommonSubsequenceLength(children1, children2);
+
+            assertThat(removedCount).isEqualTo(children1.size() - longestCommonSubsequenceLength);
+            assertThat(insertedCount).isEqualTo(children2.size() - longestCommonSubsequenceLength);
+            assertThat(matchedChildren.getUnmatchedChildren().isEmpty()).isTrue();
+            assertInOrder(matchedChildren.getPairs());
+        }
+    }
+
+    private boolean haveEqualHashes(Node child1, Node child2) {
+        return child1.getSubtreeHash() == child2.getSubtreeHash();
+    }
+
+    private static List<Node> createRandomChildren(Random random, int size, int distinctHashes) {
+        long[] subtreeHashes = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            subtreeHashes[i] = random.nextInt(distinctHashes);
+        }
+
+        return NodeFactory.createChildren(subtreeHashes);
+    }
+
+    private static int getLongestCommonSubsequenceLength(List<Node> children1, List<Node> children2) {
+        int[][] lengths = new int[children1.size() + 1][children2.size() + 1];
+
+        for (int i = 1; i <= children1.size(); i++) {
+            for (int j = 1; j <= children2.size(); j++) {
+                lengths[i][j] = children1.get(i - 1).getSubtreeHash() == children2.get(j - 1).getSubtreeHash()
+                        ? lengths[i - 1][j - 1] + 1
+                        : Math.max(lengths[i - 1][j], lengths[i][j - 1]);
+            }
+        }
+
+        return lengths[children1.size()][children2.size()];
+    }
+
+    private static void assertInOrder(List<Map.Entry<Node, Node>> pairs) {
+        for (int i = 1; i < pairs.size(); i++) {
+            assertThat(pairs.get(i).getKey().getIndex()).isGreaterThan(pairs.get(i - 1).getKey().getIndex());
+            assertThat(pairs.get(i).getValue().getIndex()).isGreaterThan(pairs.get(i - 1).getValue().getIndex());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.xml.transform.TransformerException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.lukaszkusek.xml.comparator.XMLComparator;
+import com.github.lukaszkusek.xml.comparator.comparators.ComparisonContext;
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum.HungarianMinimumCostAssignmentCalculator;
+import com.github.lukaszkusek.xml.comparator.document.XMLDocument;
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import org.junit.Test;
+
+public class CostCalculatorTest {
+
+    private static final int CHILDREN_COUNT = 100;
+    private static final int VALUES_COUNT = 3;
+
+    private final XMLComparator xmlComparator = XMLComparator.builder().build();
+
+    @Test
+    public void shouldStopComputingCostsOnceGroupReachesBound() throws TransformerException, IOException {
+        // given
+        CostCalculator costCalculator = new CostCalculator(xmlComparator);
+        int bound = 2 * VALUES_COUNT;
+
+        // when
+        CostMatrix costMatrix = findMinimumCostAssignment(costCalculator, new ComparisonContext(false), bound);
+
+        // then
+        assertThat(countComputedCells(costMatrix)).isEqualTo(bound * CHILDREN_COUNT);
+        assertThat(costMatrix.getNotTakenRows()).hasSize(CHILDREN_COUNT - bound);
+        assertThat(costCalculator.getTotalCost(costMatrix)).isGreaterThanOrEqualTo(bound);
+    }
+
+    @Test
+    public void shouldComputeAllCostsIfGroupDoesNotReachBound() throws TransformerException, IOException {
+        // given
+        CostCalculator costCalculator = new CostCalculator(xmlComparator);
+
+        // when
+        CostMatrix costMatrix =
+                findMinimumCostAssignment(costCalculator, new ComparisonContext(false), Integer.MAX_VALUE);
+
+        // then
+        assertThat(countComputedCells(costMatrix)).isEqualTo(CHILDREN_COUNT * CHILDREN_COUNT);
+        assertThat(costMatrix.getNotTakenRows()).isEmpty();
+        assertThat(costCalculator.getTotalCost(costMatrix)).isEqualTo(VALUES_COUNT * CHILDREN_COUNT);
+    }
+
+    @Test
+    public void shouldStopComputingCostsInParallelOnceGroupReachesBound() throws TransformerException, IOException {
+        // given
+        ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+        CostCalculator costCalculator = new CostCalculator(xmlComparator, forkJoinPool, 1);
+        int bound = 2 * VALUES_COUNT;
+
+        // when
+        CostMatrix costMatrix = findMinimumCostAssignment(costCalculator, new ComparisonContext(false), bound);
+
+        // then
+        assertThat(countComputedCells(costMatrix)).isLessThan(CHILDREN_COUNT * CHILDREN_COUNT / 4);
+        assertThat(costCalculator.getTotalCost(costMatrix)).isGreaterThanOrEqualTo(bound);
+
+        forkJoinPool.shutdown();
+    }
+
+    @Test
+    public void shouldNotComputeCostsOnceComparisonIsStopped() throws TransformerException, IOException {
+        // given
+        ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+        ComparisonContext context = new ComparisonContext(false);
+
+        context.stop();
+
+        // when
+        CostMatrix costMatrix =
+                findMinimumCostAssignment(new CostCalculator(xmlComparator), context, Integer.MAX_VALUE);
+        CostMatrix parallelCostMatrix = findMinimumCostAssignment(
+                new CostCalculator(xmlComparator, forkJoinPool, 1), context, Integer.MAX_VALUE);
+
+        // then
+        assertThat(countComputedCells(costMatrix)).isZero();
+        assertThat(countComputedCells(parallelCostMatrix)).isZero();
+
+        forkJoinPool.shutdown();
+    }
+
+    private static CostMatrix findMinimumCostAssignment(
+            CostCalculator costCalculator, ComparisonContext context, int bound)
+            throws TransformerException, IOException {
+
+        return costCalculator.findMinimumCostAssignment(
+                createChildren("a"),
+                createChildren("b"),
+                new HungarianMinimumCostAssignmentCalculator(),
+                context,
+                bound);
+    }
+
+    /**
+     * Every child differs from every child created with another prefix in all its values.
+     */
+    private static Collection<Node> createChildren(String prefix) throws TransformerException, IOException {
+        StringBuilder xml = new StringBuilder("<xml>");
+
+        for (int i = 0; i < CHILDREN_COUNT; i++) {
+            xml.append("<element>");
+
+            for (int j = 0; j < VALUES_COUNT; j++) {
+                xml.append("<value").append(j).append('>')
+                        .append(prefix).append(i)
+                        .append("</value").append(j).append('>');
+            }
+
+            xml.append("</element>");
+        }
+
+        Node rootNode = XMLDocument.fromXML(xml.append("</xml>").toString()).getRootNode();
+
+        return rootNode.getChildren(rootNode.getChildrenXPaths().iterator().next());
+    }
+
+    /**
+     * Cells not computed keep zero cost, while every pair of children differs.
+     */
+    private static int countComputedCells(CostMatrix costMatrix) {
+        int computedCellsCount = 0;
+
+        for (int row = 0; row < costMatrix.rowKeys().size(); row++) {
+            for (int column = 0; column < costMatrix.columnKeys().size(); column++) {
+                if (costMatrix.isLowerBound(row, column) || costMatrix.getCost(row, column) > 0) {
+                    computedCellsCount++;
+                }
+            }
+        }
+
+        return computedCellsCount;
+    }
+}
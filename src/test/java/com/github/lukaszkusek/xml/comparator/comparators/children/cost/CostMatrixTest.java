@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+public class CostMatrixTest {
+
+    @Test
+    public void shouldTellExactCostsFromLowerBounds() {
+        // given
+        for (CostMatrix costMatrix : ImmutableList.of(
+                CostMatrix.create(createKeys("a", 2), createKeys("b", 3)),
+                CostMatrix.createOutOfCore(createKeys("a", 2), createKeys("b", 3)))) {
+
+            // when
+            costMatrix.put(0, 0, 1);
+            costMatrix.putLowerBound(0, 1, 0);
+            costMatrix.put(0, 2, Integer.MAX_VALUE);
+            costMatrix.putLowerBound(1, 0, Integer.MAX_VALUE);
+            costMatrix.putLowerBound(1, 1, 5);
+            costMatrix.putExactCost(1, 1, 6);
+
+            // then
+            assertThat(costMatrix.isLowerBound(0, 0)).isFalse();
+            assertThat(costMatrix.getCost(0, 0)).isEqualTo(1);
+            assertThat(costMatrix.isLowerBound(0, 1)).isTrue();
+            assertThat(costMatrix.getCost(0, 1)).isEqualTo(0);
+            assertThat(costMatrix.isLowerBound(0, 2)).isFalse();
+            assertThat(costMatrix.getCost(0, 2)).isEqualTo(Integer.MAX_VALUE);
+            assertThat(costMatrix.isLowerBound(1, 0)).isTrue();
+            assertThat(costMatrix.getCost(1, 0)).isEqualTo(Integer.MAX_VALUE);
+            assertThat(costMatrix.isLowerBound(1, 1)).isFalse();
+            assertThat(costMatrix.getCost(1, 1)).isEqualTo(6);
+            assertThat(costMatrix.isLowerBound(1, 2)).isFalse();
+            assertThat(costMatrix.getCost(1, 2)).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void shouldTakeExactZeroCostCellsAsBestMatchesInRowOrder() {
+        // given
+        CostMatrix costMatrix = CostMatrix.create(createKeys("a", 3), createKeys("b", 3));
+        fill(costMatrix, 1);
+
+        costMatrix.putComputed(0, 1, 0, false);
+        costMatrix.putComputed(1, 1, 0, false);
+        costMatrix.putComputed(1, 2, 0, true);
+        costMatrix.putComputed(2, 0, 0, false);
+        costMatrix.putComputed(2, 2, 0, false);
+
+        // when
+        costMatrix.takeBestMatches();
+
+        // then
+        assertThat(costMatrix.getAssignedColumn(0)).isEqualTo(1);
+        assertThat(costMatrix.getAssignedColumn(1)).isEqualTo(CostMatrix.NOT_ASSIGNED);
+        assertThat(costMatrix.getAssignedColumn(2)).isEqualTo(0);
+        assertThat(costMatrix.getNotTakenRows()).containsExactly(1);
+        assertThat(costMatrix.getNotTakenColumns()).containsExactly(2);
+    }
+
+    @Test
+    public void shouldCopyCostsOfGivenRowsAndColumnsToSubMatrix() {
+        // given
+        CostMatrix costMatrix = CostMatrix.create(createKeys("a", 3), createKeys("b", 4));
+
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 4; column++) {
+                costMatrix.putExactCost(row, column, 10 * row + column + 1);
+            }
+        }
+
+        costMatrix.putLowerBound(2, 1, 7);
+        costMatrix.setBestMatch(0, 0);
+
+        // when
+        CostMatrix subMatrix = costMatrix.subMatrix(new int[]{2, 0}, new int[]{3, 1});
+
+        // then
+        assertThat(subMatrix.rowKeys()).containsExactly(costMatrix.getRowKey(2), costMatrix.getRowKey(0));
+        assertThat(subMatrix.columnKeys()).containsExactly(costMatrix.getColumnKey(3), costMatrix.getColumnKey(1));
+        assertThat(subMatrix.getCost(0, 0)).isEqualTo(24);
+        assertThat(subMatrix.getCost(0, 1)).isEqualTo(7);
+        assertThat(subMatrix.isLowerBound(0, 1)).isTrue();
+        assertThat(subMatrix.getCost(1, 0)).isEqualTo(4);
+        assertThat(subMatrix.getCost(1, 1)).isEqualTo(2);
+        assertThat(subMatrix.isLowerBound(1, 1)).isFalse();
+        assertThat(subMatrix.getNotTakenRows()).containsExactly(0, 1);
+        assertThat(subMatrix.getNotTakenColumns()).containsExactly(0, 1);
+    }
+
+    private static void fill(CostMatrix costMatrix, int cost) {
+        for (int row = 0; row < costMatrix.rowKeys().size(); row++) {
+            for (int column = 0; column < costMatrix.columnKeys().size(); column++) {
+                costMatrix.putExactCost(row, column, cost);
+            }
+        }
+    }
+
+    private static List<Node> createKeys(String name, int count) {
+        List<Node> keys = Lists.newArrayList();
+
+        for (int i = 0; i < count; i++) {
+            keys.add(new Node(i, "/xml/" + name + "[" + (i + 1) + "]"));
+        }
+
+        return keys;
+    }
+}
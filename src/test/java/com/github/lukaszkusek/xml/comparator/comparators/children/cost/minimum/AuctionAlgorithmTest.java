@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class AuctionAlgorithmTest {
+
+    @Test
+    public void shouldAssignMostCandidatesAtMinimumCost() {
+        // given
+        SparseCostArray sparseCostArray = new SparseCostArray(3, 3);
+        sparseCostArray.add(0, 1);
+        sparseCostArray.add(1, 5);
+        sparseCostArray.nextRow();
+        sparseCostArray.add(0, 2);
+        sparseCostArray.nextRow();
+        sparseCostArray.nextRow();
+
+        // when
+        int[] assignment = new AuctionAlgorithm(sparseCostArray, null).execute();
+
+        // then
+        assertThat(assignment).containsExactly(1, 0, -1);
+    }
+
+    @Test
+    public void shouldPriceManyRowsCompetingForFewColumnsWithoutOverflow() {
+        // given
+        int rows = 50_000;
+        SparseCostArray sparseCostArray = new SparseCostArray(rows, 1);
+
+        for (int row = 0; row < rows; row++) {
+            sparseCostArray.add(0, row == rows - 1 ? 39_999 : 40_000);
+            sparseCostArray.nextRow();
+        }
+
+        // when
+        int[] assignment = new AuctionAlgorithm(sparseCostArray, null).execute();
+
+        // then
+        assertThat(countAssigned(assignment)).isEqualTo(1);
+        assertThat(assignment[rows - 1]).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldFindMinimumCostOfDenseArrays() {
+        Random random = new Random(0);
+        ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+
+        for (int test = 0; test < 300; test++) {
+            // given
+            int size = test % 50 == 0 ? 200 : 20;
+            int rows = random.nextInt(size);
+            int columns = random.nextInt(size);
+            int[][] costs = new int[rows][columns];
+            SparseCostArray sparseCostArray = new SparseCostArray(rows, columns);
+
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    costs[i][j] = random.nextInt(test % 2 == 0 ? 3 : 1000);
+                    sparseCostArray.add(j, costs[i][j]);
+                }
+
+                sparseCostArray.nextRow();
+            }
+
+            // when
+            int[] assignment = new AuctionAlgorithm(sparseCostArray, test % 3 == 0 ? forkJoinPool : null).execute();
+
+            // then
+            assertThat(assignment).hasSize(rows);
+            assertThat(countAssigned(assignment)).isEqualTo(Math.min(rows, columns));
+            assertThat(computeCost(costs, assignment))
+                    .isEqualTo(computeCost(costs, new JonkerVolgenantAlgorithm(costs).execute()));
+        }
+
+        forkJoinPool.shutdown();
+    }
+
+    private static int countAssigned(int[] assignment) {
+        int assigned = 0;
+
+        for (int column : assignment) {
+            if (column >= 0) {
+                assigned++;
+            }
+        }
+
+        return assigned;
+    }
+
+    private static long computeCost(int[][] costs, int[] assignment) {
+        boolean[] assignedColumns = new boolean[costs.length == 0 ? 0 : costs[0].length];
+        long cost = 0;
+
+        for (int row = 0; row < assignment.length; row++) {
+            if (assignment[row] >= 0) {
+                assertThat(assignedColumns[assignment[row]]).isFalse();
+                assignedColumns[assignment[row]] = true;
+                cost += costs[row][assignment[row]];
+            }
+        }
+
+        return cost;
+    }
+}
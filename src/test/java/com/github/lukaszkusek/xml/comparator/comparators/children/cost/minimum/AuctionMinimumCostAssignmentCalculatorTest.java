@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostMatrix;
+import com.github.lukaszkusek.xml.comparator.util.NodeFactory;
+import org.junit.Test;
+
+public class AuctionMinimumCostAssignmentCalculatorTest {
+
+    @Test
+    public void shouldKeepOnlyCheapestExactCellsOfEachRowAsCandidates() {
+        // given
+        CostMatrix costMatrix = CostMatrix.createOutOfCore(NodeFactory.createNodes(3), NodeFactory.createNodes(5));
+        putCosts(costMatrix, 0, 7, 3, 5, 1, 9);
+        putCosts(costMatrix, 1, 4, 0, 6, 2, 8);
+        putCosts(costMatrix, 2, 1, 1, 1, 1, 1);
+        costMatrix.putLowerBound(0, 3, 1);
+        costMatrix.putLowerBound(2, 0, 0);
+        costMatrix.setBestMatch(1, 1);
+
+        // when
+        SparseCostArray sparseCostArray = new CostMatrixToCostArrayConverter(costMatrix).getSparseCostArray(2);
+
+        // then
+        assertThat(sparseCostArray.getRowsCount()).isEqualTo(2);
+        assertThat(sparseCostArray.getColumnsCount()).isEqualTo(4);
+        assertThat(describeRow(sparseCostArray, 0)).containsExactly("1:5", "0:7");
+        assertThat(describeRow(sparseCostArray, 1)).containsExactly("1:1", "2:1");
+    }
+
+    @Test
+    public void shouldAssignRowsWithoutCandidatesToTheirCheapestFreeColumnsInTurn() {
+        // given
+        CostMatrix costMatrix = CostMatrix.createOutOfCore(NodeFactory.createNodes(3), NodeFactory.createNodes(3));
+        putCosts(costMatrix, 0, 6, 7, 3);
+        putLowerBounds(costMatrix, 1, 5, 1, 0);
+        putLowerBounds(costMatrix, 2, 2, 8, 9);
+
+        // when
+        new AuctionMinimumCostAssignmentCalculator().getMinimumCostAssignment(costMatrix);
+
+        // then
+        assertThat(costMatrix.getAssignedColumn(0)).isEqualTo(2);
+        assertThat(costMatrix.getAssignedColumn(1)).isEqualTo(1);
+        assertThat(costMatrix.getAssignedColumn(2)).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldAssignOutOfCoreMatrixKeepingBoundedNumberOfCandidates() {
+        // given
+        int size = 1500;
+        CostMatrix costMatrix =
+                CostMatrix.createOutOfCore(NodeFactory.createNodes(size), NodeFactory.createNodes(size));
+
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                costMatrix.putExactCost(row, column, Math.abs(row - column));
+            }
+        }
+
+        // when
+        SparseCostArray sparseCostArray = new CostMatrixToCostArrayConverter(costMatrix)
+                .getSparseCostArray(AuctionMinimumCostAssignmentCalculator.DEFAULT_CANDIDATES_PER_ROW);
+        new AuctionMinimumCostAssignmentCalculator().getMinimumCostAssignment(costMatrix);
+
+        // then
+        assertThat(sparseCostArray.getCellsCount())
+                .isEqualTo(size * AuctionMinimumCostAssignmentCalculator.DEFAULT_CANDIDATES_PER_ROW);
+        assertThat(costMatrix.getNotTakenRows()).isEmpty();
+        assertThat(costMatrix.getAssignedCost()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldAssignCandidatesGreedilyIfAuctionPricesWouldOverflow() {
+        // given
+        int size = 1000;
+        CostMatrix costMatrix =
+                CostMatrix.createOutOfCore(NodeFactory.createNodes(size), NodeFactory.createNodes(size));
+
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                costMatrix.putLowerBound(row, column, 0);
+            }
+
+            costMatrix.putExactCost(row, row, Integer.MAX_VALUE - 1);
+            costMatrix.putExactCost(row, (row + 1) % size, Integer.MAX_VALUE);
+        }
+
+        // when
+        new AuctionMinimumCostAssignmentCalculator().getMinimumCostAssignment(costMatrix);
+
+        // then
+        for (int row = 0; row < size; row++) {
+            assertThat(costMatrix.getAssignedColumn(row)).isEqualTo(row);
+        }
+    }
+
+    private static void putCosts(CostMatrix costMatrix, int row, int... costs) {
+        for (int column = 0; column < costs.length; column++) {
+            costMatrix.putExactCost(row, column, costs[column]);
+        }
+    }
+
+    private static void putLowerBounds(CostMatrix costMatrix, int row, int... lowerBounds) {
+        for (int column = 0; column < lowerBounds.length; column++) {
+            costMatrix.putLowerBound(row, column, lowerBounds[column]);
+        }
+    }
+
+    private static List<String> describeRow(SparseCostArray sparseCostArray, int row) {
+        return IntStream.range(sparseCostArray.getRowStart(row), sparseCostArray.getRowEnd(row))
+                .mapToObj(cell -> sparseCostArray.getColumn(cell) + ":" + sparseCostArray.getCost(cell))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.lukaszkusek.xml.comparator.comparators.children.cost.CostMatrix;
+import com.github.lukaszkusek.xml.comparator.util.NodeFactory;
+import org.junit.Test;
+
+public class ConnectedComponentsMinimumCostAssignmentCalculatorTest {
+
+    private static final int COST_THRESHOLD = 2;
+
+    @Test
+    public void shouldFindMinimumCostAssignmentWithoutImplausiblePairs() {
+        Random random = new Random(0);
+        ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+
+        for (int test = 0; test < 300; test++) {
+            // given
+            int rows = random.nextInt(30);
+            int columns = random.nextInt(30);
+            int[][] costs = new int[rows][columns];
+
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    costs[i][j] = random.nextInt(10) < 2 ? random.nextInt(COST_THRESHOLD + 1) : 10 + random.nextInt(10);
+                }
+            }
+
+            ConnectedComponentsMinimumCostAssignmentCalculator calculator =
+                    new ConnectedComponentsMinimumCostAssignmentCalculator(
+                            new JonkerVolgenantMinimumCostAssignmentCalculator(),
+                            COST_THRESHOLD,
+                            test % 2 == 0 ? forkJoinPool : null);
+
+            // when
+            CostMatrix assignment = calculator.getMinimumCostAssignment(createCostMatrix(costs));
+
+            // then
+            CostMatrix minimumCostAssignment = new JonkerVolgenantMinimumCostAssignmentCalculator()
+                    .getMinimumCostAssignment(createCostMatrix(costs));
+
+            assertThat(countAssigned(assignment)).isEqualTo(Math.min(rows, columns));
+            assertThat(assignment.getAssignedCost()).isGreaterThanOrEqualTo(minimumCostAssignment.getAssignedCost());
+
+            if (getMaximumAssignedCost(minimumCostAssignment) <= COST_THRESHOLD) {
+                assertThat(assignment.getAssignedCost()).isEqualTo(minimumCostAssignment.getAssignedCost());
+            }
+        }
+
+        forkJoinPool.shutdown();
+    }
+
+    private static CostMatrix createCostMatrix(int[][] costs) {
+        CostMatrix costMatrix = CostMatrix.create(
+                NodeFactory.createNodes(costs.length),
+                NodeFactory.createNodes(costs.length == 0 ? 0 : costs[0].length));
+
+        for (int i = 0; i < costs.length; i++) {
+            for (int j = 0; j < costs[i].length; j++) {
+                costMatrix.putExactCost(i, j, costs[i][j]);
+            }
+        }
+
+        return costMatrix;
+    }
+
+    private static int countAssigned(CostMatrix costMatrix) {
+        return costMatrix.rowKeys().size() - costMatrix.getNotTakenRows().length;
+    }
+
+    private static int getMaximumAssignedCost(CostMatrix costMatrix) {
+        int maximumAssignedCost = 0;
+
+        for (int row = 0; row < costMatrix.rowKeys().size(); row++) {
+            int column = costMatrix.getAssignedColumn(row);
+
+            if (column != CostMatrix.NOT_ASSIGNED) {
+                maximumAssignedCost = Math.max(maximumAssignedCost, costMatrix.getCost(row, column));
+            }
+        }
+
+        return maximumAssignedCost;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GreedyAssignmentAlgorithmTest {
+
+    private static final int[][] COSTS = {
+            {6, 0, 7, 5},
+            {2, 6, 2, 6},
+            {2, 7, 2, 1},
+            {9, 4, 7, 1}};
+
+    @Test
+    public void shouldAssignCheapestCellsFirst() {
+        // given
+        GreedyAssignmentAlgorithm greedyAssignmentAlgorithm = new GreedyAssignmentAlgorithm(COSTS, 0);
+
+        // when
+        int[] assignment = greedyAssignmentAlgorithm.execute();
+
+        // then
+        assertThat(assignment).containsExactly(1, 0, 3, 2);
+        assertThat(greedyAssignmentAlgorithm.getCost()).isEqualTo(10);
+        assertThat(greedyAssignmentAlgorithm.getLowerBound()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldImproveGreedyAssignment() {
+        // given
+        GreedyAssignmentAlgorithm greedyAssignmentAlgorithm = new GreedyAssignmentAlgorithm(COSTS, 1);
+
+        // when
+        int[] assignment = greedyAssignmentAlgorithm.execute();
+
+        // then
+        assertThat(assignment).containsExactly(1, 0, 2, 3);
+        assertThat(greedyAssignmentAlgorithm.getCost()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldNotBeCheaperThanMinimumNorFurtherFromItThanOptimalityGap() {
+        Random random = new Random(0);
+
+        for (int test = 0; test < 500; test++) {
+            // given
+            int rows = random.nextInt(20);
+            int columns = random.nextInt(20);
+            int[][] costs = new int[rows][columns];
+
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    costs[i][j] = random.nextInt(test % 2 == 0 ? 3 : 1000);
+                }
+            }
+
+            GreedyAssignmentAlgorithm greedyAssignmentAlgorithm =
+                    new GreedyAssignmentAlgorithm(costs, random.nextInt(3));
+
+            // when
+            int[] assignment = greedyAssignmentAlgorithm.execute();
+
+            // then
+            long minimumCost = computeCost(costs, new JonkerVolgenantAlgorithm(costs).execute());
+
+            assertThat(assignment).hasSize(rows);
+            assertThat(computeCost(costs, assignment)).isEqualTo(greedyAssignmentAlgorithm.getCost());
+            assertThat(greedyAssignmentAlgorithm.getCost()).isGreaterThanOrEqualTo(minimumCost);
+            assertThat(greedyAssignmentAlgorithm.getLowerBound()).isLessThanOrEqualTo(minimumCost);
+            assertThat(countAssigned(assignment)).isEqualTo(Math.min(rows, columns));
+        }
+    }
+
+    /**
+     * Rows preferring the same columns lose their cheapest column over and over. Looking for the next one
+     * by scanning whole rows made such matrices take cubic time, much longer than the exact algorithm.
+     * Both algorithms are timed on the same machine, so the test does not depend on its speed.
+     */
+    @Test
+    public void shouldNotBeMuchSlowerThanExactAlgorithmWhenRowsPreferTheSameColumns() {
+        // given
+        int[][] warmUpCosts = createCostsPreferringTheSameColumns(200);
+        int[][] costs = createCostsPreferringTheSameColumns(2000);
+
+        new GreedyAssignmentAlgorithm(warmUpCosts, 0).execute();
+        new JonkerVolgenantAlgorithm(warmUpCosts).execute();
+
+        // when
+        long greedyStart = System.nanoTime();
+        new GreedyAssignmentAlgorithm(costs, 0).execute();
+        long greedyTime = System.nanoTime() - greedyStart;
+
+        // then
+        long exactStart = System.nanoTime();
+        new JonkerVolgenantAlgorithm(costs).execute();
+        long exactTime = System.nanoTime() - exactStart;
+
+        assertThat(greedyTime).isLessThan(15 * exactTime);
+    }
+
+    private static int[][] createCostsPreferringTheSameColumns(int size) {
+        int[][] costs = new int[size][size];
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                costs[i][j] = 10 * j + i % 7;
+            }
+        }
+
+        return costs;
+    }
+
+    private static int countAssigned(int[] assignment) {
+        int assigned = 0;
+
+        for (int column : assignment) {
+            if (column >= 0) {
+                assigned++;
+            }
+        }
+
+        return assigned;
+    }
+
+    private static long computeCost(int[][] costs, int[] assignment) {
+        boolean[] assignedColumns = new boolean[costs.length == 0 ? 0 : costs[0].length];
+        long cost = 0;
+
+        for (int row = 0; row < assignment.length; row++) {
+            if (assignment[row] >= 0) {
+                assertThat(assignedColumns[assignment[row]]).isFalse();
+                assignedColumns[assignment[row]] = true;
+                cost += costs[row][assignment[row]];
+            }
+        }
+
+        return cost;
+    }
+}
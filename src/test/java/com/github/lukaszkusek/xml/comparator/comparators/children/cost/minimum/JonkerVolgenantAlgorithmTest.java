@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.comparators.children.cost.minimum;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import blogspot.software_and_algorithms.stern_library.optimization.HungarianAlgorithm;
+import org.junit.Test;
+
+public class JonkerVolgenantAlgorithmTest {
+
+    @Test
+    public void shouldFindMinimumCostAssignment() {
+        // given
+        int[][] costs = {
+                {6, 0, 7, 5},
+                {2, 6, 2, 6},
+                {2, 7, 2, 1},
+                {9, 4, 7, 1}};
+
+        // when
+        int[] assignment = new JonkerVolgenantAlgorithm(costs).execute();
+
+        // then
+        assertThat(computeCost(costs, assignment)).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldHandleEmptyAndSingleElementMatrix() {
+        assertThat(new JonkerVolgenantAlgorithm(new int[0][0]).execute()).isEmpty();
+        assertThat(new JonkerVolgenantAlgorithm(new int[][]{{3}}).execute()).containsExactly(0);
+        assertThat(new JonkerVolgenantAlgorithm(new int[2][0]).execute()).containsExactly(-1, -1);
+    }
+
+    @Test
+    public void shouldFindTheSameCostAsHungarianAlgorithm() {
+        Random random = new Random(0);
+
+        for (int test = 0; test < 500; test++) {
+            // given
+            int dimension = 1 + random.nextInt(30);
+            int maximumCost = 1 + random.nextInt(test % 2 == 0 ? 3 : 1000);
+            int[][] costs = randomCosts(random, dimension, dimension, maximumCost);
+
+            // when
+            int[] assignment = new JonkerVolgenantAlgorithm(costs).execute();
+
+            // then
+            assertThat(assignment).doesNotContain(-1);
+            assertThat(computeCost(costs, assignment)).isEqualTo(computeCost(costs, hungarian(costs)));
+        }
+    }
+
+    @Test
+    public void shouldAssignRectangularMatrixWithTheSameCostAsHungarianAlgorithm() {
+        Random random = new Random(0);
+
+        for (int test = 0; test < 500; test++) {
+            // given
+            int rows = 1 + random.nextInt(20);
+            int columns = 1 + random.nextInt(20);
+            int maximumCost = 1 + random.nextInt(test % 2 == 0 ? 3 : 1000);
+            int[][] costs = randomCosts(random, rows, columns, maximumCost);
+
+            // when
+            int[] assignment = new JonkerVolgenantAlgorithm(costs).execute();
+
+            // then
+            assertThat(assignment).hasSize(rows);
+            assertThat(countAssigned(assignment)).isEqualTo(Math.min(rows, columns));
+            assertThat(computeCost(costs, assignment)).isEqualTo(computeCost(costs, hungarian(costs)));
+        }
+    }
+
+    private static int countAssigned(int[] assignment) {
+        int assigned = 0;
+
+        for (int column : assignment) {
+            if (column >= 0) {
+                assigned++;
+            }
+        }
+
+        return assigned;
+    }
+
+    private static int[][] randomCosts(Random random, int rows, int columns, int maximumCost) {
+        int[][] costs = new int[rows][columns];
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                costs[i][j] = random.nextInt(maximumCost);
+            }
+        }
+
+        return costs;
+    }
+
+    private static int[] hungarian(int[][] costs) {
+        double[][] doubleCosts = new double[costs.length][];
+
+        for (int i = 0; i < costs.length; i++) {
+            doubleCosts[i] = new double[costs[i].length];
+
+            for (int j = 0; j < costs[i].length; j++) {
+                doubleCosts[i][j] = costs[i][j];
+            }
+        }
+
+        return new HungarianAlgorithm(doubleCosts).execute();
+    }
+
+    private static int computeCost(int[][] costs, int[] assignment) {
+        boolean[] assignedColumns = new boolean[costs.length == 0 ? 0 : costs[0].length];
+        int cost = 0;
+
+        for (int row = 0; row < assignment.length; row++) {
+            if (assignment[row] >= 0) {
+                assertThat(assignedColumns[assignment[row]]).isFalse();
+                assignedColumns[assignment[row]] = true;
+                cost += costs[row][assignment[row]];
+            }
+        }
+
+        return cost;
+    }
+}
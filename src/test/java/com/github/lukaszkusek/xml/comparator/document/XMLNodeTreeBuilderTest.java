@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import org.junit.Test;
+
+/**
+ * Expected XPaths, indexes and values are the ones produced by the former XSLT based transformation
+ * for the same documents, unless stated otherwise.
+ */
+public class XMLNodeTreeBuilderTest {
+
+    @Test
+    public void shouldNumberSiblingsAndCountAttributesInIndexes() throws XMLStreamException {
+        // given
+        String xml = "<a x=\"1\" y=\"  p \n q \"><b/><c>t</c><b>u</b></a>";
+
+        // when
+        Node root = new XMLNodeTreeBuilder(true).build(xml);
+
+        // then
+        assertThat(describe(root)).containsExactly(
+                "0 /a null",
+                "3 /a/b[1] null",
+                "4 /a/c t",
+                "5 /a/b[2] u");
+        assertThat(root.getAttributes()).containsEntry("x", "1").containsEntry("y", "p q").hasSize(2);
+    }
+
+    @Test
+    public void shouldKeepValuesOfElementsWithoutChildElementsOnly() throws XMLStreamException {
+        // given
+        String xml = "<a><b> </b><c>  mixed <d>x</d> text </c><e><![CDATA[ <cdata> ]]></e><f>line1\nline2</f></a>";
+
+        // when
+        Node root = new XMLNodeTreeBuilder(true).build(xml);
+
+        // then
+        // XSLT printed the CDATA value escaped as "&lt;cdata&gt;", it is read as the text it contains now
+        assertThat(describe(root)).containsExactly(
+                "0 /a null",
+                "1 /a/b null",
+                "2 /a/c null",
+                "3 /a/c/d x",
+                "4 /a/e <cdata>",
+                "5 /a/f line1 line2");
+    }
+
+    @Test
+    public void shouldKeepNamespacePrefixes() throws XMLStreamException {
+        // given
+        String xml = "<p:a xmlns:p=\"urn:p\" p:x=\"1\"><p:b>v</p:b><q:b xmlns:q=\"urn:q\">w</q:b></p:a>";
+
+        // when
+        Node root = new XMLNodeTreeBuilder(false).build(xml);
+
+        // then
+        assertThat(describe(root)).containsExactly(
+                "0 /p:a null",
+                "2 /p:a/p:b v",
+                "3 /p:a/q:b w");
+        assertThat(root.getAttributes()).containsOnlyKeys("p:x");
+    }
+
+    @Test
+    public void shouldNumberSiblingsByLocalNamesIgnoringNamespaces() throws XMLStreamException {
+        // given
+        String xml = "<p:a xmlns:p=\"urn:p\" p:x=\"1\"><p:b>v</p:b><q:b xmlns:q=\"urn:q\">w</q:b></p:a>";
+
+        // when
+        Node root = new XMLNodeTreeBuilder(true).build(xml);
+
+        // then
+        // XSLT numbered siblings by prefixed names and merged both elements into "2 /a/b w"
+        assertThat(describe(root)).containsExactly(
+                "0 /a null",
+                "2 /a/b[1] v",
+                "3 /a/b[2] w");
+        assertThat(root.getAttributes()).containsOnlyKeys("p:x");
+    }
+
+    private static List<String> describe(Node root) {
+        return descendantsAndSelf(root)
+                .sorted(Comparator.comparingInt(Node::getIndex))
+                .map(node -> node.getIndex() + " " + node.getXPath() + " " + node.getValue())
+                .collect(Collectors.toList());
+    }
+
+    private static Stream<Node> descendantsAndSelf(Node node) {
+        return Stream.concat(
+                Stream.of(node),
+                node.getChildren().values().stream().flatMap(XMLNodeTreeBuilderTest::descendantsAndSelf));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.node;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class ColumnarTreeTest {
+
+    @Test
+    public void shouldReadElementsThroughNodes() {
+        // given
+        ColumnarTree tree = new ColumnarTree();
+        int xml = tree.addElement(ColumnarTree.NONE, "xml");
+        tree.addAttribute("b", " x  y ");
+        tree.addAttribute("a", "z");
+        int element1 = tree.addElement(xml, "element");
+        tree.setValue(element1, "1");
+        int other = tree.addElement(xml, "other");
+        tree.addElement(other, "leaf");
+        tree.addElement(xml, "element");
+
+        // when
+        Node root = tree.complete();
+
+        // then
+        Node element = root.getChildren("/xml/element").iterator().next();
+
+        assertThat(root.getChildrenXPaths()).containsExactly("/xml/element", "/xml/other");
+        assertThat(root.getChildren("/xml/element")).extracting(Node::getXPath)
+                .containsExactly("/xml/element[1]", "/xml/element[2]");
+        assertThat(root.getChildren("/xml/missing")).isEmpty();
+        assertThat(root.getAttributesNames()).containsExactly("a", "b");
+        assertThat(root.getAttribute("b")).isEqualTo("x y");
+        assertThat(root.getAttributes()).containsEntry("a", "z").hasSize(2);
+        assertThat(element.getIndex()).isEqualTo(3);
+        assertThat(element.getValue()).isEqualTo("1");
+        assertThat(element.getParent()).isEqualTo(root);
+        assertThat(root.getChildren("/xml/element").iterator().next()).isEqualTo(element).isNotSameAs(element);
+    }
+
+    @Test
+    public void shouldCompareNodesByXPathsWithoutBuildingThem() {
+        // given
+        ColumnarTree tree1 = createTreeWithTwoChildren("element");
+        ColumnarTree tree2 = createTreeWithTwoChildren("element");
+        ColumnarTree tree3 = createTreeWithTwoChildren("other");
+        ColumnarTree tree4 = createTreeWithTwoChildren("element");
+        tree4.addElement(1, "leaf");
+        ColumnarTree tree5 = createTreeWithTwoChildren("element");
+        tree5.addElement(2, "leaf");
+
+        // when
+        Node element1 = tree1.complete().getChildren("/xml/element").iterator().next();
+        Node element2 = tree2.complete().getChildren("/xml/element").iterator().next();
+        Node other = tree3.complete().getChildren("/xml/other").iterator().next();
+        tree4.complete();
+        tree5.complete();
+
+        // then
+        assertThat(element1).isEqualTo(tree1.getNode(1)).hasSameHashCodeAs(tree1.getNode(1));
+        assertThat(element1).isEqualTo(element2).hasSameHashCodeAs(element2);
+        assertThat(element1).isNotEqualTo(tree1.getNode(0)).isNotEqualTo(tree1.getNode(2)).isNotEqualTo(other);
+        assertThat(tree1.getNode(2).getXPath()).isEqualTo("/xml/element[2]");
+        assertThat(tree4.getNode(3)).isNotEqualTo(tree5.getNode(3));
+        assertThat(tree4.getNode(3).getXPath()).isEqualTo("/xml/element[1]/leaf");
+    }
+
+    @Test
+    public void shouldNotChangeFrozenTree() {
+        // given
+        ColumnarTree tree = new ColumnarTree();
+        tree.addElement(ColumnarTree.NONE, "xml");
+        Node root = tree.complete();
+
+        // when
+        root.freeze();
+
+        // then
+        assertThat(root.isFrozen()).isTrue();
+        assertThatThrownBy(() -> root.setSubtreeHash(1)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> root.putAttribute("a", "b")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> tree.addElement(0, "element")).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static ColumnarTree createTreeWithTwoChildren(String name) {
+        ColumnarTree tree = new ColumnarTree();
+        int root = tree.addElement(ColumnarTree.NONE, "xml");
+        tree.addElement(root, name);
+        tree.addElement(root, name);
+
+        return tree;
+    }
+}
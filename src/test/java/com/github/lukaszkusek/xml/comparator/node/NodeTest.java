@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.node;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class NodeTest {
+
+    @Test
+    public void shouldKeepChildrenInOrderOfAddingAndAttributesByName() {
+        // given
+        Node parent = new Node(0, "/xml");
+        Node child2 = new Node(2, "/xml/element[2]");
+        Node child1 = new Node(1, "/xml/element[1]");
+        Node other = new Node(3, "/xml/other");
+
+        // when
+        parent.addChild(child2);
+        parent.addChild(other);
+        parent.addChild(child1);
+        parent.putAttribute("b", " x  y ");
+        parent.putAttribute("a", "z");
+
+        // then
+        assertThat(parent.getChildrenXPaths()).containsExactly("/xml/element", "/xml/other");
+        assertThat(parent.getChildren("/xml/element")).containsExactly(child2, child1);
+        assertThat(parent.getChildren("/xml/missing")).isEmpty();
+        assertThat(parent.getAttributesNames()).containsExactly("a", "b");
+        assertThat(parent.getAttribute("b")).isEqualTo("x y");
+        assertThat(parent.getAttributes()).containsEntry("a", "z").hasSize(2);
+    }
+
+    @Test
+    public void shouldAppendChildrenAddedAfterGrouping() {
+        // given
+        Node parent = new Node(0, "/xml");
+        Node child1 = new Node(1, "/xml/element[1]");
+        Node child2 = new Node(2, "/xml/element[2]");
+        parent.addChild(child1);
+        parent.getChildren("/xml/element");
+
+        // when
+        parent.addChild(child2);
+
+        // then
+        assertThat(parent.getChildren("/xml/element")).containsExactly(child1, child2);
+    }
+
+    @Test
+    public void shouldNotChangeFrozenNodes() {
+        // given
+        Node parent = new Node(0, "/xml");
+        Node child = new Node(1, "/xml/element");
+        parent.addChild(child);
+
+        // when
+        parent.freeze();
+
+        // then
+        assertThat(child.isFrozen()).isTrue();
+        assertThat(parent.getChildren("/xml/element")).containsExactly(child);
+        assertThatThrownBy(() -> parent.addChild(new Node(2, "/xml/element")))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> child.putAttribute("a", "b")).isInstanceOf(IllegalStateException.class);
+    }
+}
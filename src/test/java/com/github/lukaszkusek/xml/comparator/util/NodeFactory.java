@@ -0,0 +1,60 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Lukasz Kusek
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.github.lukaszkusek.xml.comparator.util;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.github.lukaszkusek.xml.comparator.node.Node;
+import com.google.common.collect.Lists;
+
+public final class NodeFactory {
+
+    private NodeFactory() {}
+
+    /**
+     * Creates children of the same type with given subtree hashes, each with its own XPath.
+     */
+    public static List<Node> createChildren(long... subtreeHashes) {
+        List<Node> children = Lists.newArrayList();
+
+        for (long subtreeHash : subtreeHashes) {
+            Node child = new Node(children.size(), "/xml/element[" + (children.size() + 1) + "]");
+            child.setSubtreeHash(subtreeHash);
+            children.add(child);
+        }
+
+        return children;
+    }
+
+    /**
+     * Creates given number of children of the same type, each with its own XPath.
+     */
+    public static List<Node> createNodes(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(index -> new Node(index, "/xml/element[" + (index + 1) + "]"))
+                .collect(Collectors.toList());
+    }
+}